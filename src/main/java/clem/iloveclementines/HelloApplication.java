@@ -1,13 +1,19 @@
 package clem.iloveclementines;
 
 import clementechController.SceneChange;
+import clementechModel.DataStorage;
+import clementechModel.PersistenceExecutor;
 import clementechView.Animation;
 import clementechView.BaseStyles;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
+import java.util.concurrent.CompletableFuture;
+
 public class HelloApplication extends Application {
 
     private SceneChange nav;
@@ -16,7 +22,14 @@ public class HelloApplication extends Application {
     public void start(Stage stage) {
         BaseStyles.loadAppFonts();
 
-        nav = new SceneChange(stage);
+        // saves run in the background, so their errors are shown from here
+        PersistenceExecutor.get().setFailureHandler((file, e) -> {
+            e.printStackTrace();
+            Platform.runLater(() -> showSaveFailure(file, e));
+        });
+
+        // data files load in the background while the video plays
+        CompletableFuture<?> preload = StartupPreloader.start();
 
         Animation animation = new Animation("/animation/FINAL LOGO omg.mp4");
         Scene scene = new Scene(animation, 900, 600);
@@ -26,10 +39,31 @@ public class HelloApplication extends Application {
         stage.setScene(scene);
         stage.show();
 
-        animation.play(() -> {
+        // login waits for the preload if the video ends first
+        animation.play(() -> preload.whenComplete((timings, e) -> Platform.runLater(() -> {
+            nav = new SceneChange(stage);
             nav.showLogin();
             animation.dispose();
-        });
+        })));
+    }
+
+    @Override
+    public void stop() {
+        // write everything still queued before the JVM exits; a clean exit leaves commit.log empty
+        try {
+            DataStorage.checkpoint();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+        PersistenceExecutor.get().shutdown();
+    }
+
+    private static void showSaveFailure(String file, Throwable e) {
+        Alert a = new Alert(Alert.AlertType.ERROR);
+        a.setTitle("Save failed");
+        a.setHeaderText("Could not save " + file);
+        a.setContentText(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        a.show();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,91 @@
+package clem.iloveclementines;
+
+import clementechModel.DataStorage;
+import clementechModel.ItemRepository;
+import clementechModel.PricingEngine;
+import clementechModel.PromotionEngine;
+import clementechModel.SalesRollup;
+import clementechView.BaseStyles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// loads the data files while the intro video plays, one virtual thread per stage.
+// the loads fill the shared caches (ModelCodec file bytes, ItemRepository, the bill segment
+// manifest, BaseStyles images), so login and the first screen after it decode from memory
+// instead of disk
+public final class StartupPreloader {
+
+    public record StageTiming(String stage, long millis, Throwable error) {}
+
+    private StartupPreloader() {}
+
+    // completes when every stage has finished; a failed stage is reported, not rethrown,
+    // the screen that needs the data shows the error as before
+    public static CompletableFuture<List<StageTiming>> start() {
+        long started = System.nanoTime();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        List<CompletableFuture<StageTiming>> stages = new ArrayList<>();
+        stages.add(stage(executor, "admin", DataStorage::loadAdmin));
+        stages.add(stage(executor, "managers", DataStorage::loadManagers));
+        stages.add(stage(executor, "cashiers", DataStorage::loadCashiers));
+        stages.add(stage(executor, "items", () -> ItemRepository.get().getItems()));
+        // builds the checkout search index after (or together with) the item load
+        stages.add(stage(executor, "search", () -> ItemRepository.get().search("")));
+        stages.add(stage(executor, "pricing", () -> PricingEngine.get().warm(ItemRepository.get().getItems())));
+        stages.add(stage(executor, "promotions", () -> PromotionEngine.get().getPromotions()));
+        stages.add(stage(executor, "suppliers", DataStorage::loadSuppliers));
+        stages.add(stage(executor, "sales rollup", () -> SalesRollup.get().total(null, null, "")));
+        stages.add(stage(executor, "bills", () -> {
+            LocalDate today = LocalDate.now();
+            DataStorage.loadBillsBetween(today, today);
+            DataStorage.getBillCount();
+        }));
+        // header logos / avatars of the login and home screens
+        stages.add(stage(executor, "images", () -> BaseStyles.preloadImages(
+                "/logo/clementech.png", "/logo/cashier3.png", "/logo/manager.png", "/logo/admin.png",
+                "/logo/Back Button 2.png")));
+
+        return CompletableFuture.allOf(stages.toArray(CompletableFuture<?>[]::new))
+                .thenApply(v -> {
+                    executor.shutdown();
+                    List<StageTiming> timings = new ArrayList<>();
+                    for (CompletableFuture<StageTiming> f : stages) timings.add(f.join());
+                    report(timings, (System.nanoTime() - started) / 1_000_000);
+                    return timings;
+                });
+    }
+
+    private static CompletableFuture<StageTiming> stage(ExecutorService executor, String name, Runnable work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long t0 = System.nanoTime();
+            Throwable error = null;
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            return new StageTiming(name, (System.nanoTime() - t0) / 1_000_000, error);
+        }, executor);
+    }
+
+    private static void report(List<StageTiming> timings, long totalMillis) {
+        StringBuilder sb = new StringBuilder("Startup preload: ").append(totalMillis).append(" ms (");
+        for (int i = 0; i < timings.size(); i++) {
+            StageTiming t = timings.get(i);
+            if (i > 0) sb.append(", ");
+            sb.append(t.stage()).append(' ').append(t.millis()).append(" ms");
+            if (t.error() != null) sb.append(" FAILED");
+        }
+        System.out.println(sb.append(')'));
+
+        for (StageTiming t : timings) {
+            if (t.error() != null) t.error().printStackTrace();
+        }
+    }
+}
@@ -3,23 +3,26 @@ package clementechController;
 import clementechModel.Administrator;
 import clementechModel.Bill;
 import clementechModel.Cashier;
+import clementechModel.CheckoutPipeline;
 import clementechModel.DataStorage;
 import clementechModel.Manager;
 import clementechView.BillPeriod;
 import clementechView.BillView;
 import clementechView.UserRole;
+import javafx.application.Platform;
 import javafx.scene.Parent;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class BillController {
 
     private final BillView view;
 
-    // keep all bills loaded once
+    // only the bills of the current period / range, read from the overlapping day segments
     private final List<Bill> allBills = new ArrayList<>();
 
     private final UserRole role;
@@ -29,6 +32,9 @@ public class BillController {
     private LocalDate lastAdminFrom = LocalDate.now();
     private LocalDate lastAdminTo = LocalDate.now();
 
+    // kept as a field: the pipeline only holds listeners weakly
+    private final Consumer<Bill> finalizedListener = this::onBillFinalized;
+
     // ===================== CASHIER =====================
     public BillController(
             Cashier cashier,
@@ -50,6 +56,8 @@ public class BillController {
 
 
         view.setBills(allBills);
+        view.setSystemBillCount(DataStorage.getBillCount());
+        CheckoutPipeline.get().addListener(finalizedListener);
     }
 
     // ===================== MANAGER =====================
@@ -81,6 +89,7 @@ public class BillController {
 
         loadAllBills();
         view.setBills(allBills); // BillView shows TODAY by default
+        CheckoutPipeline.get().addListener(finalizedListener);
     }
 
     // ===================== ADMIN =====================
@@ -115,8 +124,9 @@ public class BillController {
 
         loadAllBills();
 
-        // show all bills; BillView will filter by date range itself
+        // bills of the current range; BillView filters by cashier / search itself
         view.setBills(allBills);
+        CheckoutPipeline.get().addListener(finalizedListener);
     }
 
     // ===================== API =====================
@@ -130,13 +140,13 @@ public class BillController {
         if (role == UserRole.CASHIER) {
             // cashier view filters itself (today + createdBy)
             view.setBills(allBills);
+            view.setSystemBillCount(DataStorage.getBillCount());
             return;
         }
 
         if (role == UserRole.MANAGER) {
-            // manager view filters itself based on selectedPeriod inside BillView
-            // but if you want the controller to “force” a period:
-            onManagerPeriodChanged(lastManagerPeriod);
+            // already loaded for lastManagerPeriod
+            view.setBills(allBills);
             return;
         }
 
@@ -161,6 +171,38 @@ public class BillController {
         loadAllBills();
         view.setBills(allBills);
     }
+    // a checkout of this process finished: the open bill screen shows it without reloading
+    private void onBillFinalized(Bill bill) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> onBillFinalized(bill));
+            return;
+        }
+        if (!inLoadedRange(bill.getDateBillIsGettingCut())) return;
+        for (Bill b : allBills) {
+            // refresh() may have read it from the store already
+            if (b.getBillNumber() == bill.getBillNumber()) return;
+        }
+        allBills.add(bill);
+        view.setBills(allBills);
+        if (role == UserRole.CASHIER) view.setSystemBillCount(DataStorage.getBillCount());
+    }
+
+    private boolean inLoadedRange(LocalDate day) {
+        if (day == null) return false;
+        LocalDate today = LocalDate.now();
+        LocalDate from;
+        LocalDate to = today;
+        if (role == UserRole.CASHIER) {
+            from = today;
+        } else if (role == UserRole.MANAGER) {
+            from = lastManagerPeriod.startingFrom(today);
+        } else {
+            from = lastAdminFrom;
+            to = lastAdminTo;
+        }
+        return (from == null || !day.isBefore(from)) && !day.isAfter(to);
+    }
+
     private void onAdminRangeApply(LocalDate from, LocalDate to) {
         if (from == null || to == null) return;
 
@@ -175,38 +217,15 @@ public class BillController {
     // LOADING/FILTERING
     private void loadAllBills() {
         allBills.clear();
-        allBills.addAll(DataStorage.loadBills());
-    }
-
-    private List<Bill> filterBillsForPeriod(BillPeriod period) {
         LocalDate today = LocalDate.now();
 
-        return switch (period) {
-            case TODAY -> filterBillsBetween(today, today);
-
-            // last 7 days including today
-            case THIS_WEEK -> filterBillsBetween(today.minusDays(6), today);
-
-            // last 30 days including today
-            case THIS_MONTH -> filterBillsBetween(today.minusDays(29), today);
-
-            // last 365 days including today
-            case THIS_YEAR -> filterBillsBetween(today.minusDays(364), today);
-
-            case ALL -> new ArrayList<>(allBills);
-        };
-    }
-
-    private List<Bill> filterBillsBetween(LocalDate from, LocalDate to) {
-        List<Bill> out = new ArrayList<>();
-        for (Bill b : allBills) {
-            if (b == null) continue;
-            LocalDate d = b.getDateBillIsGettingCut();
-            if (d == null) continue;
-
-            boolean ok = !d.isBefore(from) && !d.isAfter(to);
-            if (ok) out.add(b);
+        if (role == UserRole.CASHIER) {
+            allBills.addAll(DataStorage.loadBillsBetween(today, today));
+        } else if (role == UserRole.MANAGER) {
+            LocalDate from = lastManagerPeriod.startingFrom(today);
+            allBills.addAll(from == null ? DataStorage.loadBills() : DataStorage.loadBillsBetween(from, today));
+        } else {
+            allBills.addAll(DataStorage.loadBillsBetween(lastAdminFrom, lastAdminTo));
         }
-        return out;
     }
 }
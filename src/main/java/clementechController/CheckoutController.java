@@ -1,14 +1,22 @@
 package clementechController;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 import clementechModel.*;
 import clementechView.CheckoutView;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.scene.Parent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.TextInputDialog;
+import javafx.util.Duration;
 
 public class CheckoutController {
 
@@ -16,8 +24,32 @@ public class CheckoutController {
     private final Navigator navigator;
     private final CheckoutView view;
 
-    // Loaded items (from file)
-    private final ArrayList<Item> items;
+    // shared catalog, loaded once per process
+    private final ItemRepository repository = ItemRepository.get();
+
+    // scanned codes waiting for the next pulse; the timer runs only while codes arrive
+    private final ScanBuffer scans = new ScanBuffer();
+    private final AnimationTimer scanPulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            applyScans();
+        }
+    };
+
+    // true from finalize until the bill is durable; the cart cannot change meanwhile
+    private boolean finalizing = false;
+
+    // debounce for the as-you-type search
+    private final PauseTransition typing = new PauseTransition(Duration.millis(150));
+
+    private final PricingEngine pricing = PricingEngine.get();
+    private final PromotionEngine promotions = PromotionEngine.get();
+
+    // cart lines, search rows and the catalog snapshot, indexed by item id
+    private final CheckoutSession session = new CheckoutSession();
+
+    // kept as a field: the repository only holds listeners weakly
+    private final ItemRepository.Listener itemsListener = (type, changed) -> onItemsChanged();
 
     private static final String LOGO_PATH = "/logo/clementech.png";
     private static final String AVATAR_PATH = "/logo/cashier3.png"; // change if needed
@@ -26,12 +58,11 @@ public class CheckoutController {
         this.cashier = Objects.requireNonNull(cashier, "cashier");
         this.navigator = Objects.requireNonNull(navigator, "navigator");
 
-        this.items = DataStorage.loadItems();
-
         this.view = new CheckoutView(cashier.getFullName(), LOGO_PATH, AVATAR_PATH);
 
         wireActions();
         wireSelectionStockWarning();
+        repository.addListener(itemsListener);
         performSearch(); // show all items by default
     }
 
@@ -39,18 +70,40 @@ public class CheckoutController {
         return view.getRoot();
     }
 
+    // the cashier logs out: nothing may keep holding this cart's stock
+    public void dispose() {
+        typing.stop();
+        scanPulse.stop();
+        session.releaseAll();
+    }
+
+    // shown again from the screen cache; the cart is kept, changes from other
+    // processes are picked up (the listener updates the tables)
+    public void refresh() {
+        session.touchHolds();
+        repository.checkForChanges();
+    }
+
     // Wiring
     private void wireActions() {
-        view.setOnLogout(() -> navigator.showLogin());
+        view.setOnLogout(() -> {
+            dispose();
+            navigator.showLogin();
+        });
 
         view.setOnGoMainMenu(() -> navigator.showCashierHome(cashier));
         view.setOnGoTodaysBills(() -> navigator.showBillView(cashier));
         view.setOnChangePassword(() -> navigator.showChangePassword(cashier));
 
         view.setOnSearch(this::performSearch);
+
+        // as-you-type search: each key restarts the pause, so only the last one searches
+        typing.setOnFinished(e -> performSearch());
+        view.getSearchField().textProperty().addListener((obs, oldV, newV) -> typing.playFromStart());
         view.setOnAddToCart(this::addSelectedToCart);
         view.setOnRemoveLine(this::removeSelectedLine);
         view.setOnFinalizeBill(this::finalizeBill);
+        view.setOnScan(this::onScan);
     }
 
     private void wireSelectionStockWarning() {
@@ -71,64 +124,49 @@ public class CheckoutController {
 
     // Search
     private void performSearch() {
-        reloadItemsFromStorage();
-        String q = safe(view.getSearchField().getText()).toLowerCase();
+        typing.stop();
 
-        view.getResultsData().clear();
+        // blank query shows ALL items; id, name and brand are matched through the trigram index
+        List<Item> found = repository.search(view.getSearchField().getText());
         view.setStockAlert("", false);
 
-        if (q.isBlank()) {
-            // show ALL items by default
-            for (Item it : items) {
-                int available = availableStock(it);
-                String category = (it.getSector() == null) ? "-" : it.getSector().toString();
-                view.getResultsData().add(new CheckoutView.ItemRow(
-                        it.getItemName(),
-                        it.getItemId(),
-                        money(effectiveUnitPrice(it)),
-                        String.valueOf(available),
-                        category
-                ));
-            }
-            if (view.getResultsData().isEmpty()) {
-                view.setStockAlert("No items found.", false);
-            }
-            return;
-        }
-
-
-        for (Item it : items) {
-            String id = safe(it.getItemId()).toLowerCase();
-            String name = safe(it.getItemName()).toLowerCase();
+        ArrayList<CheckoutView.ItemRow> rows = new ArrayList<>(found.size());
+        session.setResults(found, this::newResultRow, this::updateResultRow, rows);
 
-            if (name.contains(q) || id.contains(q)) {
-                int available = availableStock(it);
+        // one change event for the table instead of one per row
+        view.getResultsData().setAll(rows);
 
-                String category = (it.getSector() == null) ? "-" : it.getSector().toString();
-                String priceText = money(effectiveUnitPrice(it));
-                String stockText = String.valueOf(available);
+        if (rows.isEmpty()) {
+            view.setStockAlert("No items found.", false);
+        }
+    }
 
-                CheckoutView.ItemRow row = new CheckoutView.ItemRow(
-                        it.getItemName(),
-                        it.getItemId(),
-                        priceText,
-                        stockText,
-                        category
-                );
 
-                view.getResultsData().add(row);
-            }
-        }
+    private CheckoutView.ItemRow newResultRow(Item it) {
+        return new CheckoutView.ItemRow(
+                it.getItemName(),
+                it.getItemId(),
+                PricingEngine.format(pricing.effectiveCents(it)),
+                String.valueOf(session.available(it)),
+                category(it)
+        );
+    }
 
-        if (view.getResultsData().isEmpty()) {
-            view.setStockAlert("No items found.", false);
-        }
+    // a row kept from the previous result: price, stock or names may have changed since
+    private void updateResultRow(Item it, CheckoutView.ItemRow row) {
+        row.itemNameProperty().set(it.getItemName());
+        row.priceProperty().set(PricingEngine.format(pricing.effectiveCents(it)));
+        row.stockProperty().set(String.valueOf(session.available(it)));
+        row.categoryProperty().set(category(it));
     }
 
+    private static String category(Item it) {
+        return (it.getSector() == null) ? "-" : it.getSector().toString();
+    }
 
     // Add to cart
     private void addSelectedToCart() {
-        reloadItemsFromStorage();
+        if (finalizing) return;
         CheckoutView.ItemRow selected = view.getSelectedSearchResult();
         if (selected == null) {
             popup("Select an item", "Click an item in the left table first.", Alert.AlertType.WARNING);
@@ -141,52 +179,92 @@ public class CheckoutController {
             return;
         }
 
-        int available = availableStock(item);
-        if (available <= 0) {
+        // held in the ledger before it shows in the cart; another lane may have the last units
+        if (!session.hold(item, 1)) {
             popup("Out of stock", "No stock available for this item.", Alert.AlertType.WARNING);
+            refreshSearchRowStock(item);
             updateStockWarning(item);
             return;
         }
 
-        // If item already in cart -> increase quantity
-        CheckoutView.CartRow cartRow = findCartRowByItemId(item.getItemId());
+        addToCartLine(item, 1);
+
+        // Update stock shown in search table (because reserved increased)
+        refreshSearchRowStock(item);
+
+        // Update totals
+        refreshTotals();
+
+        // Update low-stock warning label
+        updateStockWarning(item);
+    }
+
+    // units already held; adds or grows the item's cart line
+    private void addToCartLine(Item item, int qty) {
+        CheckoutView.CartRow cartRow = session.cartLine(item.getItemId());
+        long unit = pricing.effectiveCents(item);
 
         if (cartRow == null) {
-            // add new line with qty = 1
-            view.getCartData().add(new CheckoutView.CartRow(
+            cartRow = new CheckoutView.CartRow(
                     item.getItemName(),
                     item.getItemId(),
-                    1,
-                    money(effectiveUnitPrice(item)),
-                    money(effectiveUnitPrice(item))
-            ));
+                    qty,
+                    PricingEngine.format(unit),
+                    PricingEngine.format(unit * qty)
+            );
+            view.getCartData().add(cartRow);
+            session.putCartLine(item, cartRow);
         } else {
             // increase existing qty
-            int newQty = cartRow.quantityProperty().get() + 1;
+            int newQty = cartRow.quantityProperty().get() + qty;
             cartRow.quantityProperty().set(newQty);
-
-            double unit = effectiveUnitPrice(item);
-            cartRow.lineTotalProperty().set(money(unit * newQty));
+            cartRow.lineTotalProperty().set(PricingEngine.format(unit * newQty));
         }
+    }
 
-        // Update stock shown in search table (because reserved increased)
-        refreshSearchRowStock(item);
+    // Scanner
+    // called per scanned code: only queued, the pulse timer applies them
+    private void onScan(String code) {
+        scans.offer(code);
+        scanPulse.start();
+    }
 
-        // Update totals
+    // once per pulse: every code queued since the last one becomes one change per item,
+    // then one stock refresh per item and one totals update for the whole burst
+    private void applyScans() {
+        if (finalizing) return; // kept queued until the cart is free again
+        ScanBuffer.Batch batch = scans.drain(this::findItemById);
+        if (scans.isEmpty()) scanPulse.stop();
+        if (batch.isEmpty()) return;
+
+        CartHolds.Applied applied = session.holdScans(batch);
+        for (Map.Entry<Item, Integer> e : applied.added().entrySet()) addToCartLine(e.getKey(), e.getValue());
+        for (Item item : batch.quantities().keySet()) refreshSearchRowStock(item);
         refreshTotals();
 
-        // Update low-stock warning label
-        updateStockWarning(item);
+        if (!batch.unknown().isEmpty()) {
+            view.setStockAlert("Unknown code: " + String.join(", ", batch.unknown()), true);
+        } else if (!applied.shortItems().isEmpty()) {
+            view.setStockAlert("Out of stock: " + String.join(", ", applied.shortItems()), true);
+        } else if (applied.last() != null) {
+            updateStockWarning(applied.last());
+        }
     }
 
-    private void reloadItemsFromStorage() {
-        ArrayList<Item> fresh = DataStorage.loadItems();
-        items.clear();
-        items.addAll(fresh);
+    // prices or stock changed somewhere else (another screen or another process)
+    private void onItemsChanged() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::onItemsChanged);
+            return;
+        }
+        session.relinkCart(this::findItemById);
+        performSearch();
+        refreshTotals();
     }
 
     // Remove line
     private void removeSelectedLine() {
+        if (finalizing) return;
         CheckoutView.CartRow selected = view.getSelectedCartLine();
         if (selected == null) {
             popup("Select a line", "Click a line in the cart table first.", Alert.AlertType.WARNING);
@@ -197,6 +275,7 @@ public class CheckoutController {
 
         // remove that entire line (all quantity)
         view.getCartData().remove(selected);
+        session.removeCartLine(itemId);
 
         // Update stock shown in search results (reserved is now lower)
         Item item = findItemById(itemId);
@@ -210,8 +289,10 @@ public class CheckoutController {
 
 
     // Finalize bill
+    // the dialog runs here; the bill is created, committed and archived by the CheckoutPipeline
     private void finalizeBill() {
-        reloadItemsFromStorage();
+        if (finalizing) return;
+        repository.checkForChanges();
 
         if (view.getCartData().isEmpty()) {
             popup("Cart is empty", "Add at least one item before finalizing.", Alert.AlertType.WARNING);
@@ -233,97 +314,77 @@ public class CheckoutController {
             return;
         }
 
-        Bill bill;
-        try {
-            bill = cashier.createBill(buyerInfo);
-        } catch (Exception ex) {
-            popup("Bill creation failed", ex.getMessage(), Alert.AlertType.ERROR);
-            return;
+        // cart lines -> quantities; the bill is committed (commit.log) before anything else is written
+        Map<Item, Integer> quantities = new LinkedHashMap<>();
+        for (CheckoutView.CartRow row : view.getCartData()) {
+            Item item = findItemById(row.getItemCode());
+            if (item == null) continue;
+            quantities.merge(item, row.quantityProperty().get(), Integer::sum);
         }
 
-        // Add each cart line to bill qty times
-        try {
-            for (CheckoutView.CartRow row : view.getCartData()) {
-                Item item = findItemById(row.getItemCode());
-                if (item == null) continue;
-
-                int qty = row.quantityProperty().get();
+        // the cart is frozen until the bill is durable, then the next one can start
+        finalizing = true;
+        CheckoutPipeline.Ticket ticket = CheckoutPipeline.get().submit(
+                cashier, buyerInfo, quantities, session.holds(),
+                stage -> Platform.runLater(() -> showProgress(stage)));
 
-                for (int i = 0; i < qty; i++) {
-                    bill.addBillItem(item); // this permanently decreases stock
-                }
+        ticket.committed().whenComplete((bill, ex) -> Platform.runLater(() -> {
+            finalizing = false;
+            if (ex != null) {
+                view.setStockAlert("", false);
+                popup("Finalize failed", rootMessage(ex), Alert.AlertType.ERROR);
+                return;
             }
-        } catch (Exception ex) {
-            popup("Finalize failed", ex.getMessage(), Alert.AlertType.ERROR);
-            return;
-        }
-
-        // Persist bill + updated items
-        ArrayList<Bill> bills = DataStorage.loadBills();
-        bills.add(bill);
-        DataStorage.saveBills(bills);
-        DataStorage.saveItems(items);
-
-        // Clear cart UI
-        view.getCartData().clear();
-        refreshTotals();
 
-        // Refresh search results stock (if they searched something)
-        performSearch();
-
-        popup("Success", "Bill finalized successfully.", Alert.AlertType.INFORMATION);
-
-        // Optional: jump to today's bills
-        navigator.showBillView(cashier);
+            // this permanently decreased stock and committed the cart's holds
+            view.getCartData().clear();
+            session.clearCart();
+            refreshTotals();
+            performSearch();
+            view.setStockAlert("Bill #" + bill.getBillNumber() + " finalized.", false);
+        }));
+
+        // after the commit only the receipt can fail; reported without stopping the lane
+        ticket.done().whenComplete((bill, ex) -> {
+            if (ex == null || ticket.committed().isCompletedExceptionally()) return;
+            ex.printStackTrace();
+            Platform.runLater(() -> view.setStockAlert("Receipt not archived: " + rootMessage(ex), true));
+        });
     }
 
-
-    // Helpers. everything is loops
-    private Item findItemById(String itemId) {
-        String id = safe(itemId);
-        for (Item it : items) {
-            if (safe(it.getItemId()).equals(id)) return it;
-        }
-        return null;
+    private void showProgress(CheckoutPipeline.Stage stage) {
+        if (!finalizing) return;
+        String text = switch (stage) {
+            case VALIDATING -> "Finalizing: checking the bill...";
+            case RESERVING -> "Finalizing: reserving stock...";
+            case COMMITTING -> "Finalizing: saving the bill...";
+            default -> null;
+        };
+        if (text != null) view.setStockAlert(text, false);
     }
 
-    private CheckoutView.CartRow findCartRowByItemId(String itemId) {
-        String id = safe(itemId);
-        for (CheckoutView.CartRow r : view.getCartData()) {
-            if (safe(r.getItemCode()).equals(id)) return r;
+    private static String rootMessage(Throwable ex) {
+        Throwable t = ex;
+        while (t.getCause() != null && (t instanceof CompletionException || t.getMessage() == null)) {
+            t = t.getCause();
         }
-        return null;
+        return t.getMessage() == null ? t.getClass().getSimpleName() : t.getMessage();
     }
 
-    private int reservedQty(String itemId) {
-        String id = safe(itemId);
-        int sum = 0;
-        for (CheckoutView.CartRow r : view.getCartData()) {
-            if (safe(r.getItemCode()).equals(id)) {
-                sum += r.quantityProperty().get();
-            }
-        }
-        return sum;
-    }
 
-    private int availableStock(Item item) {
-        return item.getStockQuantity() - reservedQty(item.getItemId());
+    // Helpers
+    // the loaded catalog; changes on disk are picked up by search and finalize
+    private Item findItemById(String itemId) {
+        return repository.findLoaded(safe(itemId));
     }
 
     private void refreshSearchRowStock(Item item) {
-        String id = safe(item.getItemId());
-        int available = availableStock(item);
-
-        for (CheckoutView.ItemRow row : view.getResultsData()) {
-            if (safe(row.getItemCode()).equals(id)) {
-                row.stockProperty().set(String.valueOf(available));
-                break;
-            }
-        }
+        CheckoutView.ItemRow row = session.result(item.getItemId());
+        if (row != null) row.stockProperty().set(String.valueOf(session.available(item)));
     }
 
     private void updateStockWarning(Item item) {
-        int available = availableStock(item);
+        int available = session.available(item);
         boolean low = available <= 3;
 
         if (low) {
@@ -345,44 +406,32 @@ public class CheckoutController {
         a.showAndWait();
     }
 
-    private static String money(double v) {
-        return String.format(java.util.Locale.US, "%.2f", v);
-    }
-
-    private double effectiveUnitPrice(Item item) {
-        if (item == null) return 0.0;
-
-        double price = item.getSellingPrice();
-        double discPct = item.getDiscountPercentage(); // 0..100
-
-        // safety clamp (prevents weird negatives if something saved wrong)
-        if (discPct < 0) discPct = 0;
-        if (discPct > 100) discPct = 100;
-
-        return price * (1.0 - discPct / 100.0);
-    }
-
+    // cents from the PricingEngine table, summed the way Bill sums its lines
     private void refreshTotals() {
-        double subtotal = 0;
-        double discountAmount = 0;
-
-        reloadItemsFromStorage();
-
-        for (CheckoutView.CartRow row : view.getCartData()) {
-            Item item = findItemById(row.getItemCode());
-            if (item == null) continue;
-
-            int qty = row.quantityProperty().get();
-            double price = item.getSellingPrice();
-            double discPct = item.getDiscountPercentage();
-
-            subtotal += price * qty;
-            discountAmount += price * qty * (discPct / 100.0);
+        long subtotal = 0;
+        long discount = 0;
+        int n = session.lineCount();
+        session.ensureLineCapacity(n);
+        String[] ids = session.lineIds;
+        Item[] items = session.lineItems;
+        long[] unit = session.lineUnitCents;
+        int[] qty = session.lineQuantities;
+
+        for (int i = 0; i < n; i++) {
+            CheckoutSession.CartLine line = session.line(i);
+            PricingEngine.Price price = pricing.price(line.item());
+            ids[i] = line.item().getItemId();
+            items[i] = line.item();
+            unit[i] = price.effectiveCents();
+            qty[i] = line.row().quantityProperty().get();
+
+            subtotal += price.unitCents() * qty[i];
+            discount += price.discountCents() * qty[i];
         }
+        // the same rules commitBill records on the bill; buffers and result belong to the session
+        discount += promotions.evaluate(n, ids, items, unit, qty, session.promotionResult).totalDiscountCents;
 
-        double total = subtotal - discountAmount;
-
-        view.setDiscountText("Discount: -" + money(discountAmount));
-        view.setTotalText("Total: " + money(total));
+        view.setDiscountText("Discount: -" + PricingEngine.format(discount));
+        view.setTotalText("Total: " + PricingEngine.format(subtotal - discount));
     }
-}
\ No newline at end of file
+}
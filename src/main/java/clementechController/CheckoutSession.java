@@ -0,0 +1,158 @@
+package clementechController;
+
+import clementechModel.CartHolds;
+import clementechModel.Item;
+import clementechModel.PromotionEngine;
+import clementechModel.ScanBuffer;
+import clementechModel.StockLedger;
+import clementechView.CheckoutView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// state of one checkout screen, indexed by item id (trimmed, lower case like Item.equals):
+// the rows of the current search result and the cart lines.
+// a cart line holds the reserved quantity of its item, so lookups never scan the tables;
+// the same units are held in the StockLedger (CartHolds) so no other lane can sell them meanwhile.
+class CheckoutSession {
+
+    private Map<String, CheckoutView.ItemRow> results = new HashMap<>();
+    // a cart line with the item it sells; lines also kept in cart order for the totals pass
+    record CartLine(Item item, CheckoutView.CartRow row) {}
+
+    private final Map<String, CartLine> cart = new HashMap<>();
+    private final ArrayList<CartLine> cartOrder = new ArrayList<>();
+    private final CartHolds holds = new CartHolds();
+
+    // SEARCH ROWS
+    // rows of the previous result are reused (typing usually narrows it), the rest dropped
+    void setResults(List<Item> found, Function<Item, CheckoutView.ItemRow> create,
+                    BiConsumer<Item, CheckoutView.ItemRow> update, List<CheckoutView.ItemRow> out) {
+        Map<String, CheckoutView.ItemRow> previous = results;
+        results = new HashMap<>(Math.max(16, found.size() * 2));
+        for (Item it : found) {
+            String id = key(it.getItemId());
+            CheckoutView.ItemRow row = previous.get(id);
+            if (row == null) {
+                row = create.apply(it);
+            } else {
+                update.accept(it, row);
+            }
+            results.put(id, row);
+            out.add(row);
+        }
+    }
+
+    CheckoutView.ItemRow result(String itemId) {
+        return results.get(key(itemId));
+    }
+
+    // CART
+    CheckoutView.CartRow cartLine(String itemId) {
+        CartLine line = cart.get(key(itemId));
+        return line == null ? null : line.row();
+    }
+
+    void putCartLine(Item item, CheckoutView.CartRow row) {
+        CartLine line = new CartLine(item, row);
+        cart.put(key(row.getItemCode()), line);
+        cartOrder.add(line);
+    }
+
+    // the line's units go back to the free stock
+    void removeCartLine(String itemId) {
+        CartLine line = cart.remove(key(itemId));
+        if (line != null) cartOrder.remove(line);
+        holds.release(itemId);
+    }
+
+    // after a commit: DataStorage.commitBill already committed the holds
+    void clearCart() {
+        cart.clear();
+        cartOrder.clear();
+        holds.clear();
+    }
+
+    // the screen is closed (logout): the cart is dropped and its units go back to the free stock
+    void releaseAll() {
+        holds.releaseAll();
+        clearCart();
+    }
+
+    int lineCount() {
+        return cartOrder.size();
+    }
+
+    CartLine line(int i) {
+        return cartOrder.get(i);
+    }
+
+    // after a reload the catalog holds new Item objects; the lines follow them
+    void relinkCart(Function<String, Item> lookup) {
+        for (int i = 0; i < cartOrder.size(); i++) {
+            CartLine old = cartOrder.get(i);
+            Item fresh = lookup.apply(old.row().getItemCode());
+            if (fresh == null || fresh == old.item()) continue;
+            CartLine line = new CartLine(fresh, old.row());
+            cartOrder.set(i, line);
+            cart.put(key(old.row().getItemCode()), line);
+        }
+    }
+
+    int reserved(String itemId) {
+        CartLine line = cart.get(key(itemId));
+        return line == null ? 0 : line.row().quantityProperty().get();
+    }
+
+    // HOLDS
+    // qty more units of the item for this cart; false if other carts or the stock leave too few
+    boolean hold(Item item, int qty) {
+        return holds.hold(item, qty, reserved(item.getItemId()));
+    }
+
+    // one scan pulse; the caller puts the added units on the cart lines
+    CartHolds.Applied holdScans(ScanBuffer.Batch batch) {
+        return holds.apply(batch, item -> reserved(item.getItemId()));
+    }
+
+    Collection<StockLedger.Hold> holds() {
+        return holds.holds();
+    }
+
+    void touchHolds() {
+        holds.touch();
+    }
+
+    // free stock for every lane: this cart's units are held too
+    int available(Item item) {
+        return holds.available(item);
+    }
+
+    // TOTALS
+    // the promotion inputs of every totals refresh (once per scan pulse) go in these; they grow
+    // with the cart and are reused, so a refresh allocates nothing
+    String[] lineIds = new String[16];
+    Item[] lineItems = new Item[16];
+    long[] lineUnitCents = new long[16];
+    int[] lineQuantities = new int[16];
+    final PromotionEngine.Result promotionResult = new PromotionEngine.Result();
+
+    void ensureLineCapacity(int n) {
+        if (lineIds.length >= n) return;
+        int size = Math.max(n, lineIds.length * 2);
+        lineIds = Arrays.copyOf(lineIds, size);
+        lineItems = Arrays.copyOf(lineItems, size);
+        lineUnitCents = Arrays.copyOf(lineUnitCents, size);
+        lineQuantities = Arrays.copyOf(lineQuantities, size);
+    }
+
+    static String key(String itemId) {
+        return itemId == null ? "" : itemId.trim().toLowerCase();
+    }
+}
@@ -2,14 +2,21 @@ package clementechController;
 
 import clementechModel.DataStorage;
 import clementechModel.Item;
+import clementechModel.ItemRepository;
 import clementechModel.Manager;
+import clementechModel.PricingEngine;
+import clementechModel.Promotion;
+import clementechModel.PromotionEngine;
+import clementechModel.Sector;
 import clementechView.DiscountView;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
@@ -17,7 +24,12 @@ import java.util.Optional;
 public class DiscountController {
 
     private final DiscountView view;
-    private final ArrayList<Item> items;
+    private final ArrayList<Item> items = new ArrayList<>();
+
+    private final ItemRepository repository = ItemRepository.get();
+
+    // kept as a field: the repository only holds listeners weakly
+    private final ItemRepository.Listener itemsListener = (type, changed) -> onItemsChanged();
 
     public DiscountController(
             Manager manager,
@@ -45,10 +57,12 @@ public class DiscountController {
         view.setOnManageStocks(onManageStocks);
         view.setOnCheckSales(onCheckSales);
         view.setOnModifySuppliers(onModifySuppliers);
+        view.setOnPromotions(this::managePromotions);
 
         // load items
-        this.items = DataStorage.loadItems();
+        items.addAll(repository.getItems());
         refreshTable();
+        repository.addListener(itemsListener);
 
         // double click to edit discount
         view.getTable().setRowFactory(tv -> {
@@ -68,6 +82,21 @@ public class DiscountController {
         return view.getRoot();
     }
 
+    // shown again from the screen cache; the listener redraws if the files changed
+    public void refresh() {
+        repository.checkForChanges();
+    }
+
+    private void onItemsChanged() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::onItemsChanged);
+            return;
+        }
+        items.clear();
+        items.addAll(repository.getItems());
+        refreshTable();
+    }
+
     private void refreshTable() {
         ObservableList<DiscountView.Row> rows = FXCollections.observableArrayList();
         for (Item it : items) {
@@ -109,12 +138,162 @@ public class DiscountController {
         }
 
         it.setDiscountPercentage(val);   // 0 removes discount
-        DataStorage.saveItems(items);
+        repository.saveNumbers(List.of(it));
 
-        refreshTable();
         popup("Saved", "Discount updated.", Alert.AlertType.INFORMATION);
     }
 
+    // sector / brand / supplier percentages, buy N get M and cart thresholds (see PromotionEngine)
+    private void managePromotions() {
+        List<Promotion> current = new ArrayList<>(PromotionEngine.get().getPromotions());
+
+        List<PromotionAction> actions = new ArrayList<>();
+        for (Promotion.Kind kind : Promotion.Kind.values()) {
+            actions.add(new PromotionAction("Add " + addLabel(kind), kind, 0, false));
+        }
+        for (Promotion p : current) {
+            actions.add(new PromotionAction((p.active() ? "Pause: " : "Resume: ") + p.describe(), null, p.id(), false));
+            actions.add(new PromotionAction("Remove: " + p.describe(), null, p.id(), true));
+        }
+
+        ChoiceDialog<PromotionAction> d = new ChoiceDialog<>(actions.get(0), actions);
+        d.setTitle("Promotions");
+        d.setHeaderText(current.isEmpty() ? "No promotions yet." : current.size() + " promotion(s).");
+        d.setContentText("Action:");
+        Optional<PromotionAction> res = d.showAndWait();
+        if (res.isEmpty()) return;
+
+        PromotionAction choice = res.get();
+        try {
+            if (choice.kind() != null) {
+                Promotion added = askPromotion(choice.kind(), nextPromotionId(current));
+                if (added == null) return;
+                current.add(added);
+            } else {
+                int at = indexOfPromotion(current, choice.promotionId());
+                if (at < 0) return;
+                if (choice.remove()) current.remove(at);
+                else current.set(at, current.get(at).withActive(!current.get(at).active()));
+            }
+            DataStorage.savePromotions(current);
+        } catch (IllegalArgumentException ex) {
+            popup("Invalid", ex.getMessage(), Alert.AlertType.WARNING);
+            return;
+        } catch (RuntimeException ex) {
+            popup("Error", ex.getMessage(), Alert.AlertType.ERROR);
+            return;
+        }
+        popup("Saved", "Promotions updated.", Alert.AlertType.INFORMATION);
+    }
+
+    // one entry of the promotions dialog; a kind adds a rule of that kind, null acts on promotionId
+    private record PromotionAction(String label, Promotion.Kind kind, int promotionId, boolean remove) {
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static int indexOfPromotion(List<Promotion> promotions, int id) {
+        for (int i = 0; i < promotions.size(); i++) {
+            if (promotions.get(i).id() == id) return i;
+        }
+        return -1;
+    }
+
+    private static String addLabel(Promotion.Kind kind) {
+        return switch (kind) {
+            case SECTOR -> "sector discount";
+            case BRAND -> "brand discount";
+            case SUPPLIER -> "supplier discount";
+            case BUY_N_GET_M -> "buy N get M free";
+            case CART_THRESHOLD -> "cart threshold discount";
+        };
+    }
+
+    private Promotion askPromotion(Promotion.Kind kind, int id) {
+        String name = ask("Promotion name:", "");
+        if (name == null) return null;
+
+        switch (kind) {
+            case SECTOR -> {
+                List<String> sectors = new ArrayList<>();
+                for (Sector s : Sector.values()) sectors.add(s.name());
+                ChoiceDialog<String> d = new ChoiceDialog<>(sectors.get(0), sectors);
+                d.setTitle("Promotions");
+                d.setHeaderText(null);
+                d.setContentText("Sector:");
+                Optional<String> sector = d.showAndWait();
+                if (sector.isEmpty()) return null;
+                Double pct = askNumber("Discount percentage:");
+                return pct == null ? null : Promotion.sector(id, name, Sector.valueOf(sector.get()), pct);
+            }
+            case BRAND, SUPPLIER -> {
+                String target = ask(kind == Promotion.Kind.BRAND ? "Brand:" : "Supplier name:", "");
+                if (target == null) return null;
+                Double pct = askNumber("Discount percentage:");
+                if (pct == null) return null;
+                return kind == Promotion.Kind.BRAND
+                        ? Promotion.brand(id, name, target, pct)
+                        : Promotion.supplier(id, name, target, pct);
+            }
+            case BUY_N_GET_M -> {
+                String itemId = ask("Item id:", "");
+                if (itemId == null) return null;
+                if (findById(itemId) == null) throw new IllegalArgumentException("No item with id " + itemId + ".");
+                Integer buy = askWhole("Units to buy (N):");
+                if (buy == null) return null;
+                Integer free = askWhole("Units free (M):");
+                if (free == null) return null;
+                return Promotion.buyNGetM(id, name, itemId, buy, free);
+            }
+            case CART_THRESHOLD -> {
+                Double threshold = askNumber("Cart total from:");
+                if (threshold == null) return null;
+                Double pct = askNumber("Discount percentage:");
+                if (pct == null) return null;
+                return Promotion.cartThreshold(id, name, PricingEngine.toCents(threshold), pct);
+            }
+            default -> throw new IllegalArgumentException("Unknown promotion kind " + kind + ".");
+        }
+    }
+
+    private static int nextPromotionId(List<Promotion> promotions) {
+        int max = 0;
+        for (Promotion p : promotions) max = Math.max(max, p.id());
+        return max + 1;
+    }
+
+    private static String ask(String label, String initial) {
+        TextInputDialog d = new TextInputDialog(initial);
+        d.setTitle("Promotions");
+        d.setHeaderText(null);
+        d.setContentText(label);
+        Optional<String> res = d.showAndWait();
+        if (res.isEmpty() || res.get().isBlank()) return null;
+        return res.get().trim();
+    }
+
+    private static Double askNumber(String label) {
+        String s = ask(label, "");
+        if (s == null) return null;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Enter a number like 10 or 15.5");
+        }
+    }
+
+    private static Integer askWhole(String label) {
+        String s = ask(label, "");
+        if (s == null) return null;
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Enter a whole number like 2 or 3.");
+        }
+    }
+
     private Item findById(String id) {
         String needle = safe(id);
         for (Item it : items) {
@@ -1,8 +1,8 @@
 package clementechController;
 
 import clementechModel.Administrator;
-import clementechModel.DataStorage;
 import clementechModel.Item;
+import clementechModel.ItemRepository;
 import clementechModel.Manager;
 import clementechModel.Sector;
 import clementechView.ItemsSectorsView;
@@ -17,12 +17,13 @@ import java.util.TreeSet;
 public class ItemsSectorsController {
 
     private final ItemsSectorsView view;
+    private final String supplier;
 
     public ItemsSectorsController(Manager manager, String supplierName, Navigator nav) {
         Objects.requireNonNull(manager, "manager");
         Objects.requireNonNull(nav, "nav");
 
-        String supplier = safe(supplierName);
+        this.supplier = safe(supplierName);
 
         this.view = new ItemsSectorsView(
                 manager.getFullName(),
@@ -40,15 +41,14 @@ public class ItemsSectorsController {
         view.setOnSetDiscounts(() -> nav.showDiscounts(manager));
         view.setOnManageStocks(() -> nav.showManageStocks(manager));
 
-        ArrayList<Item> items = DataStorage.loadItems();
-        view.setRows(buildRows(items, supplier));
+        refresh();
     }
 
     public ItemsSectorsController(Administrator admin, String supplierName, Navigator nav) {
         Objects.requireNonNull(admin, "admin");
         Objects.requireNonNull(nav, "nav");
 
-        String supplier = safe(supplierName);
+        this.supplier = safe(supplierName);
 
         this.view = new ItemsSectorsView(
                 admin.getFullName(),
@@ -66,14 +66,19 @@ public class ItemsSectorsController {
         view.setOnSetDiscounts(() -> {});
         view.setOnManageStocks(() -> nav.showInventory(admin));
 
-        ArrayList<Item> items = DataStorage.loadItems();
-        view.setRows(buildRows(items, supplier));
+        refresh();
     }
 
     public Parent getView() {
         return view.getRoot();
     }
 
+    // also runs when the screen is shown again from the screen cache
+    public void refresh() {
+        ArrayList<Item> items = ItemRepository.get().getItems();
+        view.setRows(buildRows(items, supplier));
+    }
+
     private ObservableList<ItemsSectorsView.Row> buildRows(ArrayList<Item> items, String supplierName) {
         String needle = safe(supplierName);
 
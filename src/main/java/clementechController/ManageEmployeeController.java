@@ -29,6 +29,11 @@ public class ManageEmployeeController {
         view.deleteBtn().setOnAction(e -> onDelete());
     }
 
+    // shown again from the screen cache
+    public void refresh() {
+        loadRows();
+    }
+
     private void loadRows() {
         rows.clear();
 
@@ -36,6 +36,15 @@ public class ManagePermissionsController {
         wireSave();
     }
 
+    // shown again from the screen cache: permissions may have been edited elsewhere
+    public void refresh() {
+        cashiers.clear();
+        cashiers.addAll(DataStorage.loadCashiers());
+        managers.clear();
+        managers.addAll(DataStorage.loadManagers());
+        loadIntoTable();
+    }
+
     private void wireNav() {
         view.setOnLogout(nav::showLogin);
         view.setOnChangePassword(() -> nav.showChangePassword(admin));
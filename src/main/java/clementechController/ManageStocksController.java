@@ -3,6 +3,7 @@ package clementechController;
 import clementechModel.*;
 import clementechView.ManageStocksView;
 import clementechView.UserRole;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Parent;
@@ -11,6 +12,7 @@ import javafx.scene.layout.GridPane;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -19,6 +21,11 @@ public class ManageStocksController {
     private final ManageStocksView view;
     private final ArrayList<Item> items = new ArrayList<>();
 
+    private final ItemRepository repository = ItemRepository.get();
+
+    // kept as a field: the repository only holds listeners weakly
+    private final ItemRepository.Listener itemsListener = (type, changed) -> onItemsChanged();
+
     // manager is only set in manager mode
     private final Manager manager;
 
@@ -52,6 +59,7 @@ public class ManageStocksController {
 
         reloadItems();
         view.setItems(toRows(items));
+        repository.addListener(itemsListener);
     }
 
     //  MANAGER (FULL ACCESS)
@@ -79,6 +87,7 @@ public class ManageStocksController {
 
         reloadItems();
         view.setItems(toRows(items));
+        repository.addListener(itemsListener);
 
         // actions
         view.setOnAddStock(this::addStock);
@@ -90,10 +99,24 @@ public class ManageStocksController {
         return view.getRoot();
     }
 
+    // shown again from the screen cache; the listener redraws if the files changed
+    public void refresh() {
+        repository.checkForChanges();
+    }
+
     // DATA
     private void reloadItems() {
         items.clear();
-        items.addAll(DataStorage.loadItems());
+        items.addAll(repository.getItems());
+    }
+
+    private void onItemsChanged() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::onItemsChanged);
+            return;
+        }
+        reloadItems();
+        view.setItems(toRows(items));
     }
 
     private ObservableList<ManageStocksView.ItemRow> toRows(ArrayList<Item> list) {
@@ -173,11 +196,9 @@ public class ManageStocksController {
             return;
         }
 
-        it.setStockQuantity(it.getStockQuantity() + qty);
-        DataStorage.saveItems(items);
+        it.addStock(qty);
+        repository.saveNumbers(List.of(it));
 
-        reloadItems();
-        view.setItems(toRows(items));
         popup("Saved", "Stock updated.", Alert.AlertType.INFORMATION);
     }
 
@@ -203,11 +224,8 @@ public class ManageStocksController {
         Optional<ButtonType> ans = confirm.showAndWait();
         if (ans.isEmpty() || ans.get() != ButtonType.OK) return;
 
-        items.remove(it);
-        DataStorage.saveItems(items);
+        repository.remove(it);
 
-        reloadItems();
-        view.setItems(toRows(items));
         popup("Deleted", "Item removed.", Alert.AlertType.INFORMATION);
     }
 
@@ -294,15 +312,13 @@ public class ManageStocksController {
                 return;
             }
 
-            existing.setStockQuantity(existing.getStockQuantity() + stock);
+            existing.addStock(stock);
 
             // existing.setPurchasePrice(purchase);
             // existing.setSellingPrice(selling);
 
-            DataStorage.saveItems(items);
+            repository.saveNumbers(List.of(existing));
 
-            reloadItems();
-            view.setItems(toRows(items));
             popup("Saved", "Stock increased for existing item.", Alert.AlertType.INFORMATION);
             return;
         }
@@ -332,11 +348,8 @@ public class ManageStocksController {
                 chosenSupplier
         );
 
-        items.add(itemToSave);
-        DataStorage.saveItems(items);
+        repository.add(itemToSave);
 
-        reloadItems();
-        view.setItems(toRows(items));
         popup("Success", "New item added.", Alert.AlertType.INFORMATION);
     }
 
@@ -14,6 +14,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public class SceneChange implements Navigator {
 
@@ -22,18 +23,31 @@ public class SceneChange implements Navigator {
 
     private final Deque<Parent> history = new ArrayDeque<>();
 
+    // views and controllers of the logged-in user, reused until logout
+    private final ScreenCache screens = new ScreenCache();
+
     public SceneChange(Stage stage) {
         this.stage = Objects.requireNonNull(stage, "stage");
         this.auth = new AuthService();
     }
 
     private void setRoot(Parent root) {
+        setRoot(root, true);
+    }
+
+    // a cached root was already walked the first time it was shown
+    private void setRoot(Parent root, boolean fresh) {
         if (stage.getScene() == null) {
             stage.setScene(new Scene(root, 1000, 700));
         } else {
             stage.getScene().setRoot(root);
         }
-        forceInteractive(stage.getScene().getRoot());
+        if (fresh) forceInteractive(stage.getScene().getRoot());
+    }
+
+    private void show(ScreenCache.Key key, Supplier<ScreenCache.Screen> build) {
+        ScreenCache.Shown shown = screens.show(key, build);
+        setRoot(shown.root(), shown.built());
     }
 
     private static void forceInteractive(javafx.scene.Node n) {
@@ -53,7 +67,7 @@ public class SceneChange implements Navigator {
     }
 
     private void goBackOrLogin() {
-        if (!history.isEmpty()) setRoot(history.pop());
+        if (!history.isEmpty()) setRoot(history.pop(), false);
         else showLogin();
     }
 
@@ -61,6 +75,7 @@ public class SceneChange implements Navigator {
     @Override
     public void showLogin() {
         history.clear();
+        screens.clear();
         this.auth = new AuthService();
         LoginController controller = new LoginController(auth, this);
         setRoot(controller.getView());
@@ -71,41 +86,45 @@ public class SceneChange implements Navigator {
     public void showCashierHome(Cashier cashier) {
         Objects.requireNonNull(cashier, "cashier");
 
-        CashierView view = new CashierView(
-                cashier.getFullName(),
-                "/logo/clementech.png",
-                "/logo/cashier3.png"
-        );
+        show(new ScreenCache.Key("cashier", "home"), () -> {
+            CashierView view = new CashierView(
+                    cashier.getFullName(),
+                    "/logo/clementech.png",
+                    "/logo/cashier3.png"
+            );
 
-        view.setOnCheckout(() -> showCheckout(cashier));
-        view.setOnTodaysBills(() -> showBillView(cashier));
-        view.setOnLogout(this::showLogin);
-        view.setOnChangePassword(() -> showChangePassword(cashier));
+            view.setOnCheckout(() -> showCheckout(cashier));
+            view.setOnTodaysBills(() -> showBillView(cashier));
+            view.setOnLogout(this::showLogin);
+            view.setOnChangePassword(() -> showChangePassword(cashier));
 
-        setRoot(view.getRoot());
+            return new ScreenCache.Screen(view.getRoot());
+        });
     }
 
     // MANAGER HOME
     @Override
     public void showManagerHome(Manager manager) {
         Objects.requireNonNull(manager, "manager");
-        ManagerController controller = new ManagerController(manager, this);
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("manager", "home"),
+                () -> new ScreenCache.Screen(new ManagerController(manager, this).getView()));
     }
 
     //  ADMIN HOME
     @Override
     public void showAdminHome(Administrator admin) {
         Objects.requireNonNull(admin, "admin");
-        AdminController controller = new AdminController(admin, this);
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("admin", "home"),
+                () -> new ScreenCache.Screen(new AdminController(admin, this).getView()));
     }
 
     //  CHECKOUT
     public void showCheckout(Cashier cashier) {
         Objects.requireNonNull(cashier, "cashier");
-        CheckoutController controller = new CheckoutController(cashier, this);
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("cashier", "checkout"), () -> {
+            CheckoutController controller = new CheckoutController(cashier, this);
+            return new ScreenCache.Screen(controller.getView(), controller::refresh, controller::dispose);
+        });
     }
 
     //  CHANGE PASSWORD
@@ -194,137 +213,151 @@ public class SceneChange implements Navigator {
     public void showBillView(Cashier cashier) {
         Objects.requireNonNull(cashier, "cashier");
 
-        BillController controller = new BillController(
-                cashier,
-                () -> showCashierHome(cashier),
-                () -> showCheckout(cashier),
-                this::showLogin,
-                () -> showChangePassword(cashier)
-        );
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("cashier", "bills"), () -> {
+            BillController controller = new BillController(
+                    cashier,
+                    () -> showCashierHome(cashier),
+                    () -> showCheckout(cashier),
+                    this::showLogin,
+                    () -> showChangePassword(cashier)
+            );
+            return new ScreenCache.Screen(controller.getView(), controller::refresh);
+        });
     }
 
     @Override
     public void showBillView(Manager manager) {
         Objects.requireNonNull(manager, "manager");
 
-        BillController controller = new BillController(
-                manager,
-                () -> showManagerHome(manager),
-                () -> showManageStocks(manager),
-                () -> showDiscounts(manager),
-                () -> showSuppliers(manager),
-                this::showLogin,
-                () -> showChangePassword(manager)
-        );
-
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("manager", "bills"), () -> {
+            BillController controller = new BillController(
+                    manager,
+                    () -> showManagerHome(manager),
+                    () -> showManageStocks(manager),
+                    () -> showDiscounts(manager),
+                    () -> showSuppliers(manager),
+                    this::showLogin,
+                    () -> showChangePassword(manager)
+            );
+            return new ScreenCache.Screen(controller.getView(), controller::refresh);
+        });
     }
 
     @Override
     public void showBillView(Administrator admin) {
         Objects.requireNonNull(admin, "admin");
 
-        BillController controller = new BillController(
-                admin,
-                () -> showAdminHome(admin),
-                () -> showSuppliers(admin),
-                () -> showManageEmployee(admin),
-                () -> showManagePermissions(admin),
-                () -> showInventory(admin),
-                this::showLogin,
-                () -> showChangePassword(admin)
-        );
-
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("admin", "bills"), () -> {
+            BillController controller = new BillController(
+                    admin,
+                    () -> showAdminHome(admin),
+                    () -> showSuppliers(admin),
+                    () -> showManageEmployee(admin),
+                    () -> showManagePermissions(admin),
+                    () -> showInventory(admin),
+                    this::showLogin,
+                    () -> showChangePassword(admin)
+            );
+            return new ScreenCache.Screen(controller.getView(), controller::refresh);
+        });
     }
 
     //  MANAGER PAGES
     @Override
     public void showManageStocks(Manager manager) {
         Objects.requireNonNull(manager, "manager");
-        ManageStocksController c = new ManageStocksController(manager, this);
-        setRoot(c.getView());
+        show(new ScreenCache.Key("manager", "stocks"), () -> {
+            ManageStocksController c = new ManageStocksController(manager, this);
+            return new ScreenCache.Screen(c.getView(), c::refresh);
+        });
     }
 
     @Override
     public void showDiscounts(Manager manager) {
         Objects.requireNonNull(manager, "manager");
 
-        DiscountController controller = new DiscountController(
-                manager,
-                () -> showManagerHome(manager),
-                () -> showManageStocks(manager),
-                () -> showBillView(manager),
-                () -> showSuppliers(manager),
-                this::showLogin,
-                () -> showChangePassword(manager)
-        );
-
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("manager", "discounts"), () -> {
+            DiscountController controller = new DiscountController(
+                    manager,
+                    () -> showManagerHome(manager),
+                    () -> showManageStocks(manager),
+                    () -> showBillView(manager),
+                    () -> showSuppliers(manager),
+                    this::showLogin,
+                    () -> showChangePassword(manager)
+            );
+            return new ScreenCache.Screen(controller.getView(), controller::refresh);
+        });
     }
 
     @Override
     public void showSuppliers(Manager manager) {
         Objects.requireNonNull(manager, "manager");
 
-        SupplierView view = new SupplierView(
-                UserRole.MANAGER,
-                manager.getFullName(),
-                "/logo/clementech.png",
-                "/logo/manager.png"
-        );
+        show(new ScreenCache.Key("manager", "suppliers"), () -> {
+            SupplierView view = new SupplierView(
+                    UserRole.MANAGER,
+                    manager.getFullName(),
+                    "/logo/clementech.png",
+                    "/logo/manager.png"
+            );
 
-        view.setOnLogout(this::showLogin);
-        view.setOnChangePassword(() -> showChangePassword(manager));
+            view.setOnLogout(this::showLogin);
+            view.setOnChangePassword(() -> showChangePassword(manager));
 
-        view.setOnHome(() -> showManagerHome(manager));
-        view.setOnManageStocks(() -> showManageStocks(manager));
-        view.setOnSetDiscounts(() -> showDiscounts(manager));
-        view.setOnCheckSales(() -> showBillView(manager));
+            view.setOnHome(() -> showManagerHome(manager));
+            view.setOnManageStocks(() -> showManageStocks(manager));
+            view.setOnSetDiscounts(() -> showDiscounts(manager));
+            view.setOnCheckSales(() -> showBillView(manager));
 
-        new SupplierController(view, manager, this);
-
-        setRoot(view.getRoot());
+            SupplierController controller = new SupplierController(view, manager, this);
+            return new ScreenCache.Screen(view.getRoot(), controller::refresh);
+        });
     }
 
     @Override
     public void showSuppliers(Administrator admin) {
         Objects.requireNonNull(admin, "admin");
 
-        SupplierView view = new SupplierView(
-                UserRole.ADMIN,
-                admin.getFullName(),
-                "/logo/clementech.png",
-                "/logo/admin.png"
-        );
-
-        view.setOnLogout(this::showLogin);
-        view.setOnChangePassword(() -> showChangePassword(admin));
-
-        view.setOnHome(() -> showAdminHome(admin));
-        view.setOnManageEmployees(() -> showManageEmployee(admin));
-        view.setOnManagePermissions(() -> showManagePermissions(admin));
-        view.setOnViewInventory(() -> showInventory(admin));
-        view.setOnBills(() -> showBillView(admin));
-
-        new SupplierController(view, admin, this);
-
-        setRoot(view.getRoot());
+        show(new ScreenCache.Key("admin", "suppliers"), () -> {
+            SupplierView view = new SupplierView(
+                    UserRole.ADMIN,
+                    admin.getFullName(),
+                    "/logo/clementech.png",
+                    "/logo/admin.png"
+            );
+
+            view.setOnLogout(this::showLogin);
+            view.setOnChangePassword(() -> showChangePassword(admin));
+
+            view.setOnHome(() -> showAdminHome(admin));
+            view.setOnManageEmployees(() -> showManageEmployee(admin));
+            view.setOnManagePermissions(() -> showManagePermissions(admin));
+            view.setOnViewInventory(() -> showInventory(admin));
+            view.setOnBills(() -> showBillView(admin));
+
+            SupplierController controller = new SupplierController(view, admin, this);
+            return new ScreenCache.Screen(view.getRoot(), controller::refresh);
+        });
     }
 
     @Override
     public void showItemsSectors(Manager manager, String supplierName) {
         Objects.requireNonNull(manager, "manager");
-        ItemsSectorsController c = new ItemsSectorsController(manager, supplierName, this);
-        setRoot(c.getView());
+        // one screen per supplier
+        show(new ScreenCache.Key("manager", "itemsSectors", String.valueOf(supplierName)), () -> {
+            ItemsSectorsController c = new ItemsSectorsController(manager, supplierName, this);
+            return new ScreenCache.Screen(c.getView(), c::refresh);
+        });
     }
 
     @Override
     public void showItemsSectors(Administrator admin, String supplierName) {
         Objects.requireNonNull(admin, "admin");
-        ItemsSectorsController c = new ItemsSectorsController(admin, supplierName, this);
-        setRoot(c.getView());
+        show(new ScreenCache.Key("admin", "itemsSectors", String.valueOf(supplierName)), () -> {
+            ItemsSectorsController c = new ItemsSectorsController(admin, supplierName, this);
+            return new ScreenCache.Screen(c.getView(), c::refresh);
+        });
     }
 
     //  helpers
@@ -382,20 +415,22 @@ public class SceneChange implements Navigator {
 
     @Override
     public void showManageEmployee(Administrator admin) {
-        ManageEmployeeView view = new ManageEmployeeView(
-                admin.getFullName(),
-                "/logo/clementech.png",
-                "/logo/admin.png"
-        );
-        view.setOnLogout(this::showLogin);
-        view.setOnHome(() -> showAdminHome(admin));
-        view.setOnBills(() -> showBillView(admin));
-        view.setOnSuppliers(() -> showSuppliers(admin));
-        view.setOnInventory(() -> showInventory(admin));
-        view.setOnChangePassword(() -> showChangePassword(admin));
-        view.setOnPermissions(() -> showManagePermissions(admin));
-        new ManageEmployeeController(view);
-        setRoot(view.getRoot());
+        show(new ScreenCache.Key("admin", "employees"), () -> {
+            ManageEmployeeView view = new ManageEmployeeView(
+                    admin.getFullName(),
+                    "/logo/clementech.png",
+                    "/logo/admin.png"
+            );
+            view.setOnLogout(this::showLogin);
+            view.setOnHome(() -> showAdminHome(admin));
+            view.setOnBills(() -> showBillView(admin));
+            view.setOnSuppliers(() -> showSuppliers(admin));
+            view.setOnInventory(() -> showInventory(admin));
+            view.setOnChangePassword(() -> showChangePassword(admin));
+            view.setOnPermissions(() -> showManagePermissions(admin));
+            ManageEmployeeController controller = new ManageEmployeeController(view);
+            return new ScreenCache.Screen(view.getRoot(), controller::refresh);
+        });
     }
 
     @Override
@@ -406,22 +441,26 @@ public class SceneChange implements Navigator {
     @Override
     public void showInventory(Administrator admin) {
         Objects.requireNonNull(admin, "admin");
-        ManageStocksController controller = new ManageStocksController(admin, this);
-        setRoot(controller.getView());
+        show(new ScreenCache.Key("admin", "inventory"), () -> {
+            ManageStocksController controller = new ManageStocksController(admin, this);
+            return new ScreenCache.Screen(controller.getView(), controller::refresh);
+        });
     }
 
     @Override
     public void showManagePermissions(Administrator admin) {
         Objects.requireNonNull(admin, "admin");
 
-        ManagePermissionsView view = new ManagePermissionsView(
-                admin.getFullName(),
-                "/logo/clementech.png",
-                "/logo/admin.png"
-        );
+        show(new ScreenCache.Key("admin", "permissions"), () -> {
+            ManagePermissionsView view = new ManagePermissionsView(
+                    admin.getFullName(),
+                    "/logo/clementech.png",
+                    "/logo/admin.png"
+            );
 
-        new ManagePermissionsController(view, admin, this);
-        setRoot(view.getRoot());
+            ManagePermissionsController controller = new ManagePermissionsController(view, admin, this);
+            return new ScreenCache.Screen(view.getRoot(), controller::refresh);
+        });
     }
 
     @SuppressWarnings("unused")
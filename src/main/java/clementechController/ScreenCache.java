@@ -0,0 +1,67 @@
+package clementechController;
+
+import javafx.scene.Parent;
+
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// screens of the logged-in session, built once per (role, screen, argument).
+// showing a cached screen again only runs its refresh hook instead of rebuilding
+// the view, its tables and styles. entries are held softly so the GC can drop
+// them under memory pressure; logout clears the whole cache.
+// a screen with a dispose hook owns something outside itself (the checkout's stock holds):
+// it is held strongly and disposed when the cache is cleared
+class ScreenCache {
+
+    record Key(String role, String screen, String arg) {
+        Key(String role, String screen) {
+            this(role, screen, "");
+        }
+    }
+
+    // refresh is null for static screens (home pages), dispose for screens owning nothing
+    record Screen(Parent root, Runnable refresh, Runnable dispose) {
+        Screen(Parent root, Runnable refresh) {
+            this(root, refresh, null);
+        }
+
+        Screen(Parent root) {
+            this(root, null, null);
+        }
+    }
+
+    private final Map<Key, SoftReference<Screen>> screens = new HashMap<>();
+    private final Map<Key, Screen> disposable = new HashMap<>();
+
+    // result of show(): the root and whether it was built just now
+    record Shown(Parent root, boolean built) {
+    }
+
+    Shown show(Key key, Supplier<Screen> build) {
+        SoftReference<Screen> ref = screens.get(key);
+        Screen cached = ref == null ? null : ref.get();
+        if (cached != null) {
+            if (cached.refresh() != null) cached.refresh().run();
+            return new Shown(cached.root(), false);
+        }
+
+        Screen fresh = build.get();
+        screens.put(key, new SoftReference<>(fresh));
+        if (fresh.dispose() != null) disposable.put(key, fresh);
+        return new Shown(fresh.root(), true);
+    }
+
+    void clear() {
+        for (Screen s : disposable.values()) {
+            try {
+                s.dispose().run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        disposable.clear();
+        screens.clear();
+    }
+}
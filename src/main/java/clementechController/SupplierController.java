@@ -31,6 +31,11 @@ public class SupplierController {
         wireOpenItemsSectors();
     }
 
+    // shown again from the screen cache
+    public void refresh() {
+        loadSuppliers();
+    }
+
     private void loadSuppliers() {
         ArrayList<Supplier> suppliers = DataStorage.loadSuppliers();
 
@@ -167,7 +172,7 @@ public class SupplierController {
         for (SupplierRow r : supplierRows) {
             toSave.add(new Supplier(r.getName(), r.getContact()));
         }
-        DataStorage.saveSuppliers(toSave);
+        DataStorage.saveSuppliersAsync(toSave);
     }
 
     private void popup(String title, String msg, AlertType type) {
@@ -9,6 +9,9 @@ public class Accessories extends Item implements Serializable{
     private String compatibility;
     private String accessoryType;
 
+    Accessories() {
+    }
+
     public  Accessories(String itemId, String name, String brand, double purchasePrice, double SellingPrice
             , String compatibility, String accessoryType,int quantity,LocalDate dateOfPurchase,Inventory inventory)
     {
@@ -30,6 +33,16 @@ public class Accessories extends Item implements Serializable{
         return accessoryType;
     }
 
+    public void setItemCompatibility(String compatibility)
+    {
+        this.compatibility = compatibility;
+    }
+
+    public void setAccessoryType(String accessoryType)
+    {
+        this.accessoryType = accessoryType;
+    }
+
     @Override
     public String getItemInfo()
     {
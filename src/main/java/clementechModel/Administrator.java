@@ -12,6 +12,8 @@ public class Administrator extends Employee implements Serializable{
 
     private static final long serialVersionUID = 1L;
     private ArrayList<Manager>managers;
+    // stored links, resolved to managers by DataStorage.loadAdmin()
+    transient ArrayList<Integer> managerIds = new ArrayList<>();
     public Administrator(int employeeId, String firstName, String lastName, LocalDate dateOfBirth, String phone,
                          String email, double salary)
     {
@@ -19,6 +21,16 @@ public class Administrator extends Employee implements Serializable{
         this.managers = new ArrayList<>();
     }
 
+    Administrator()
+    {
+        this.managers = new ArrayList<>();
+    }
+
+    ArrayList<Manager> getManagers()
+    {
+        return managers;
+    }
+
     public void addManagers(Manager manager)
     {
         if(managers.contains(manager))
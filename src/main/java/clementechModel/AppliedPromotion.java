@@ -0,0 +1,17 @@
+package clementechModel;
+
+import java.io.Serializable;
+
+// a promotion that took money off a bill: itemId is the line it applied to,
+// null for a cart-wide promotion
+public record AppliedPromotion(int promotionId, String name, String itemId, long discountCents)
+        implements Serializable {
+
+    public double getDiscount() {
+        return PricingEngine.toAmount(discountCents);
+    }
+
+    public String getInfo() {
+        return "Promotion: " + name + (itemId == null ? "" : " on " + itemId) + " -" + PricingEngine.format(discountCents);
+    }
+}
@@ -3,20 +3,35 @@ package clementechModel;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Bill implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private int billNumber;
-    private static int nextBillNumber = 1;
 
-    private ArrayList<Item> billItems;
+    // one line per item and price; earlier versions kept one full Item per unit sold
+    private ArrayList<BillLine> lines;
+    // the items added in this session, so deleteBillItem can give their stock back
+    private transient Map<String, Item> liveItems;
+    // lower-cased item id -> index of its last line, built on first use
+    private transient Map<String, Integer> lineIndex;
     private double totalBillPrice;      // sum before discount
     private double totalDiscount;       // total discount amount
     private double priceAfterDiscount;  // final payable amount
+    // the running sums behind the three totals; a stored bill sums its lines once when changed
+    private transient long totalCents;
+    private transient long discountCents;
+    private transient boolean centsKnown;
+    // promotions recorded when the bill was committed; their discount is part of totalDiscount
+    private ArrayList<AppliedPromotion> promotions = new ArrayList<>();
 
     private String buyerInfo;
     private LocalDate dateBillIsGettingCut;
@@ -25,14 +40,26 @@ public class Bill implements Serializable {
     private String createdByUsername;
 
     public Bill(String buyerInfo, String createdByUsername) {
-        this.billNumber = nextBillNumber++;
-        this.billItems = new ArrayList<>();
+        this.billNumber = BillNumberSequence.get().next();
+        this.lines = new ArrayList<>();
         setBuyerInfo(buyerInfo);
         this.dateBillIsGettingCut = LocalDate.now();
         this.createdByUsername = createdByUsername == null ? "" : createdByUsername.trim();
+        this.centsKnown = true;
+    }
 
-        recalcTotals();
-        autoSave();
+    // used by ModelCodec to rebuild a stored bill without renumbering or re-saving it
+    Bill(int billNumber, String buyerInfo, LocalDate date, String createdByUsername, ArrayList<BillLine> lines,
+         double totalBillPrice, double totalDiscount, double priceAfterDiscount, List<AppliedPromotion> promotions) {
+        this.billNumber = billNumber;
+        this.buyerInfo = buyerInfo;
+        this.dateBillIsGettingCut = date;
+        this.createdByUsername = createdByUsername == null ? "" : createdByUsername;
+        this.lines = lines == null ? new ArrayList<>() : lines;
+        this.totalBillPrice = totalBillPrice;
+        this.totalDiscount = totalDiscount;
+        this.priceAfterDiscount = priceAfterDiscount;
+        if (promotions != null) this.promotions.addAll(promotions);
     }
 
     // keep your old constructor if you still use it somewhere
@@ -48,82 +75,192 @@ public class Bill implements Serializable {
 
     //NEW: duhet per "items sold" stats in BillView
     public int getItemCount() {
-        return billItems == null ? 0 : billItems.size();
+        int count = 0;
+        for (BillLine line : lines) count += line.quantity();
+        return count;
     }
 
-    public ArrayList<Item> getBillItems() { return billItems; } // optional, but useful
+    public List<BillLine> getLines() { return Collections.unmodifiableList(lines); }
+
+    public List<AppliedPromotion> getPromotions() { return Collections.unmodifiableList(promotions); }
+
+    // the item of a line added in this session, null for a stored bill
+    Item liveItem(String itemId) {
+        return liveItems == null || itemId == null ? null : liveItems.get(key(itemId));
+    }
 
     public void addBillItem(Item billItem) {
+        addBillItem(billItem, 1);
+    }
+
+    // sells qty units at once: stock is checked and decreased once, the totals are
+    // updated by the line's amount instead of being summed again over every line
+    public void addBillItem(Item billItem, int qty) {
         if (billItem == null) throw new IllegalArgumentException("Bill item cannot be null.");
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive.");
         if (billItem.getStockQuantity() <= 0) throw new IllegalArgumentException("Cannot add item: out of stock.");
+        if (billItem.getStockQuantity() < qty) {
+            throw new IllegalArgumentException("Cannot add item: only " + billItem.getStockQuantity() + " in stock.");
+        }
+        applyAdd(billItem, qty);
+    }
+
+    // a whole cart: every item is checked before the first one is changed
+    public void addLines(Map<Item, Integer> quantities) {
+        if (quantities == null) throw new IllegalArgumentException("Bill items cannot be null.");
+        for (Map.Entry<Item, Integer> e : quantities.entrySet()) {
+            Item it = e.getKey();
+            int qty = e.getValue() == null ? 0 : e.getValue();
+            if (it == null) throw new IllegalArgumentException("Bill item cannot be null.");
+            if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+            if (it.getStockQuantity() < qty) {
+                throw new IllegalArgumentException("Cannot add " + it.getItemName() + ": only "
+                        + Math.max(0, it.getStockQuantity()) + " in stock.");
+            }
+        }
+        for (Map.Entry<Item, Integer> e : quantities.entrySet()) applyAdd(e.getKey(), e.getValue());
+    }
 
-        billItems.add(billItem);
+    private void applyAdd(Item billItem, int qty) {
+        ensureCents();
+        clearPromotions();
+        // same item at the same price goes on the same line
+        int i = indexOfSale(billItem);
+        BillLine added = BillLine.of(billItem, qty);
+        if (i >= 0) {
+            lines.set(i, lines.get(i).withQuantity(lines.get(i).quantity() + qty));
+        } else {
+            lines.add(added);
+            lineIndex().put(key(billItem.getItemId()), lines.size() - 1);
+        }
+        if (liveItems == null) liveItems = new HashMap<>();
+        liveItems.put(key(billItem.getItemId()), billItem);
 
         // Update stock and sales info
-        billItem.setStockQuantity(billItem.getStockQuantity() - 1);
-        billItem.setNumberSold(billItem.getNumberSold() + 1);
+        synchronized (Item.STOCK_LOCK) {
+            billItem.stockQuatity -= qty;
+            billItem.numberSold += qty;
+        }
         billItem.setDateSold(LocalDate.now());
 
-        recalcTotals();
-        autoSave();
+        addToTotals(added, 1);
     }
 
     public void deleteBillItem(String id) {
+        deleteBillItem(id, 1);
+    }
+
+    // takes qty units of the item's last line off the bill and gives their stock back
+    public void deleteBillItem(String id, int qty) {
         if (id == null || id.isBlank()) throw new IllegalArgumentException("Id cannot be empty.");
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive.");
 
-        if (billItems.isEmpty()) {
+        if (lines.isEmpty()) {
             System.out.println("Bill is empty. Nothing to remove.");
             return;
         }
 
-        for (int i = 0; i < billItems.size(); i++) {
-            Item item = billItems.get(i);
-            if (item.getItemId().equals(id)) {
+        Integer at = lineIndex().get(key(id));
+        if (at == null) {
+            System.out.println("Item with id " + id + " not found in bill.");
+            return;
+        }
+
+        ensureCents();
+        clearPromotions();
+        BillLine line = lines.get(at);
+        int removed = Math.min(qty, line.quantity());
+
+        // Restore stock & sales info
+        Item item = liveItems == null ? null : liveItems.get(key(id));
+        if (item == null) item = ItemRepository.get().findById(id);
+        if (item != null) {
+            synchronized (Item.STOCK_LOCK) {
+                item.stockQuatity += removed;
+                item.numberSold -= removed;
+            }
+            item.setDateSold(null);
+        }
 
-                // Restore stock & sales info
-                item.setStockQuantity(item.getStockQuantity() + 1);
-                item.setNumberSold(item.getNumberSold() - 1);
-                item.setDateSold(null);
+        if (line.quantity() > removed) {
+            lines.set(at, line.withQuantity(line.quantity() - removed));
+        } else {
+            lines.remove((int) at);
+            lineIndex = null;
+        }
+        addToTotals(line.withQuantity(removed), -1);
+    }
 
-                billItems.remove(i);
+    // last line of each item id; rebuilt after a line is removed
+    private Map<String, Integer> lineIndex() {
+        if (lineIndex == null) {
+            lineIndex = new HashMap<>();
+            for (int i = 0; i < lines.size(); i++) lineIndex.put(key(lines.get(i).itemId()), i);
+        }
+        return lineIndex;
+    }
 
-                recalcTotals();
-                autoSave();
-                return;
-            }
+    private int indexOfSale(Item item) {
+        Integer last = lineIndex().get(key(item.getItemId()));
+        if (last == null) return -1;
+        if (lines.get(last).sameSaleAs(item)) return last;
+        // the price or discount changed while the bill was open: look for an older line
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).sameSaleAs(item)) return i;
         }
+        return -1;
+    }
 
-        System.out.println("Item with id " + id + " not found in bill.");
+    private static String key(String itemId) {
+        return itemId.trim().toLowerCase();
     }
 
     public double getTotalBillPrice() { return this.totalBillPrice; }         // before discount
     public double getTotalDiscount() { return this.totalDiscount; }
     public double getPriceAfterDiscount() { return this.priceAfterDiscount; } // ✅ use this as revenue
 
-    private void recalcTotals() {
-        double sum = 0;
-        double disc = 0;
-
-        for (Item item : billItems) {
-            if (item == null) continue;
+    // revenue is based on the selling price snapshot of each line; sign -1 takes a line off
+    private void addToTotals(BillLine line, int sign) {
+        totalCents += sign * line.getTotalCents();       // before discount
+        discountCents += sign * line.getDiscountCents(); // discount amount
+        updateTotals();
+    }
 
-            // revenue is based on selling price
-            double price = item.getSellingPrice();
+    // replaces the recorded promotions (PromotionEngine.apply) and their share of the discount
+    void setPromotions(List<AppliedPromotion> applied) {
+        ensureCents();
+        clearPromotions();
+        for (AppliedPromotion p : applied) {
+            promotions.add(p);
+            discountCents += p.discountCents();
+        }
+        updateTotals();
+    }
 
-            // discountPercentage is 0 to 100 (checkout uses /100.0)
-            double discPct = item.getDiscountPercentage();
+    // the lines changed: the recorded promotions no longer hold
+    private void clearPromotions() {
+        if (promotions.isEmpty()) return;
+        for (AppliedPromotion p : promotions) discountCents -= p.discountCents();
+        promotions.clear();
+        updateTotals();
+    }
 
-            // safety clamp
-            if (discPct < 0) discPct = 0;
-            if (discPct > 100) discPct = 100;
+    private void updateTotals() {
+        this.totalBillPrice = PricingEngine.toAmount(totalCents);
+        this.totalDiscount = PricingEngine.toAmount(discountCents);
+        this.priceAfterDiscount = PricingEngine.toAmount(totalCents - discountCents); // final payable / revenue
+    }
 
-            sum += price;
-            disc += price * (discPct / 100.0);
+    private void ensureCents() {
+        if (centsKnown) return;
+        totalCents = 0;
+        discountCents = 0;
+        for (BillLine line : lines) {
+            totalCents += line.getTotalCents();
+            discountCents += line.getDiscountCents();
         }
-
-        this.totalBillPrice = sum;           // before discount
-        this.totalDiscount = disc;           // discount amount
-        this.priceAfterDiscount = sum - disc; // final payable / revenue
+        for (AppliedPromotion p : promotions) discountCents += p.discountCents();
+        centsKnown = true;
     }
 
     public LocalDate getDateBillIsGettingCut() { return this.dateBillIsGettingCut; }
@@ -146,8 +283,12 @@ public class Bill implements Serializable {
         }
         sb.append("\nItems:\n");
 
-        for (Item item : billItems) {
-            sb.append(item.getItemInfo()).append("\n");
+        for (BillLine line : lines) {
+            sb.append(line.getLineInfo()).append("\n");
+        }
+        if (!promotions.isEmpty()) {
+            sb.append("\nPromotions:\n");
+            for (AppliedPromotion p : promotions) sb.append(p.getInfo()).append("\n");
         }
 
         sb.append("\nTotal (before discount): ").append(totalBillPrice);
@@ -156,26 +297,56 @@ public class Bill implements Serializable {
         return sb.toString();
     }
 
+    // receipts are archived once, when the bill is finalized (see ReceiptWriter);
+    // this writes a loose text file on demand
     public void saveToTextFile() throws IOException {
         File dir = new File("bills");
         if (!dir.exists()) dir.mkdirs();
 
-        String filename = "bills/Bill_" + billNumber + "_" + dateBillIsGettingCut + ".txt";
-        try (FileWriter fw = new FileWriter(filename)) {
+        try (FileWriter fw = new FileWriter(getReceiptFileName())) {
             fw.write(getBillInfo());
         }
     }
 
-    private void autoSave() {
-        try {
-            saveToTextFile();
-        } catch (IOException e) {
-            System.out.println("Failed to auto-save bill: " + e.getMessage());
+    public String getReceiptFileName() {
+        return "bills/Bill_" + billNumber + "_" + dateBillIsGettingCut + ".txt";
+    }
+
+    // consecutive units of the same item and price become one line (bills stored with full Items)
+    static ArrayList<BillLine> toLines(List<Item> items) {
+        ArrayList<BillLine> out = new ArrayList<>();
+        if (items == null) return out;
+        for (Item it : items) {
+            if (it == null || it.getItemId() == null || it.getItemId().isBlank()) continue;
+            int last = out.size() - 1;
+            if (last >= 0 && out.get(last).sameSaleAs(it)) {
+                out.set(last, out.get(last).withQuantity(out.get(last).quantity() + 1));
+            } else {
+                out.add(BillLine.of(it, 1));
+            }
         }
+        return out;
     }
 
-    // called by DataStorage.loadBills()
-    public static void syncNextBillNumber(int n) {
-        nextBillNumber = Math.max(1, n);
+    // bills.dat / cashiers.dat from before the line records still hold "billItems"
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField f = in.readFields();
+        billNumber = f.get("billNumber", 0);
+        totalBillPrice = f.get("totalBillPrice", 0.0);
+        totalDiscount = f.get("totalDiscount", 0.0);
+        priceAfterDiscount = f.get("priceAfterDiscount", 0.0);
+        buyerInfo = (String) f.get("buyerInfo", null);
+        dateBillIsGettingCut = (LocalDate) f.get("dateBillIsGettingCut", null);
+        createdByUsername = (String) f.get("createdByUsername", "");
+
+        if (f.getObjectStreamClass().getField("billItems") != null) {
+            lines = toLines((List<Item>) f.get("billItems", null));
+        } else {
+            lines = (ArrayList<BillLine>) f.get("lines", null);
+            if (lines == null) lines = new ArrayList<>();
+        }
+        promotions = (ArrayList<AppliedPromotion>) f.get("promotions", null);
+        if (promotions == null) promotions = new ArrayList<>();
     }
 }
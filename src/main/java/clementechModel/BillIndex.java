@@ -0,0 +1,68 @@
+package clementechModel;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// bills ordered by date, then bill number. a date range is two binary searches over the
+// epoch days and the bills in it are one contiguous slice, no other bill is looked at.
+// bills without a date are left out: no range includes them
+public class BillIndex {
+
+    private final Bill[] bills;
+    private final long[] days;
+
+    public BillIndex(Collection<Bill> source) {
+        List<Bill> dated = new ArrayList<>(source == null ? 0 : source.size());
+        if (source != null) {
+            for (Bill b : source) {
+                if (b != null && b.getDateBillIsGettingCut() != null) dated.add(b);
+            }
+        }
+        // the bill store hands them out day by day already; then there is nothing to sort
+        if (!inOrder(dated)) {
+            dated.sort(Comparator.comparing(Bill::getDateBillIsGettingCut).thenComparingInt(Bill::getBillNumber));
+        }
+
+        bills = dated.toArray(new Bill[0]);
+        days = new long[bills.length];
+        for (int i = 0; i < bills.length; i++) days[i] = bills[i].getDateBillIsGettingCut().toEpochDay();
+    }
+
+    private static boolean inOrder(List<Bill> bills) {
+        for (int i = 1; i < bills.size(); i++) {
+            Bill prev = bills.get(i - 1);
+            Bill cur = bills.get(i);
+            int c = prev.getDateBillIsGettingCut().compareTo(cur.getDateBillIsGettingCut());
+            if (c > 0 || (c == 0 && prev.getBillNumber() > cur.getBillNumber())) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return bills.length;
+    }
+
+    // from..to inclusive, oldest first; null from / to = no bound on that side
+    public List<Bill> between(LocalDate from, LocalDate to) {
+        int lo = from == null ? 0 : firstOnOrAfter(from.toEpochDay());
+        int hi = to == null ? bills.length : firstOnOrAfter(to.toEpochDay() + 1);
+        if (hi <= lo) return List.of();
+        return Collections.unmodifiableList(Arrays.asList(bills).subList(lo, hi));
+    }
+
+    private int firstOnOrAfter(long day) {
+        int lo = 0;
+        int hi = days.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,206 @@
+package clementechModel;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// append-only bill store: one length-prefixed record per finalized bill.
+// record layout: [int payloadLength][int crc32][int billNumber][payload]
+public class BillJournal {
+
+    private static final int HEADER_BYTES = 12;
+
+    private final File file;
+
+    // cached from a header-only scan, so appends never re-read history
+    private int maxBillNumber = -1;
+    private int recordCount = 0;
+
+    public BillJournal(String fileName) {
+        this.file = new File(fileName);
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    public synchronized void append(Bill bill) throws IOException {
+        if (bill == null) throw new IllegalArgumentException("Bill cannot be null.");
+        ensureScanned();
+
+        byte[] record = encodeRecord(bill);
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(record);
+        }
+
+        recordCount++;
+        maxBillNumber = Math.max(maxBillNumber, bill.getBillNumber());
+    }
+
+    public synchronized ArrayList<Bill> replay() throws IOException {
+        ArrayList<Bill> bills = new ArrayList<>();
+        if (!file.exists()) {
+            maxBillNumber = 0;
+            recordCount = 0;
+            return bills;
+        }
+
+        long goodOffset = 0;
+        int max = 0;
+        int legacyRecords = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                try {
+                    int crc = in.readInt();
+                    int billNumber = in.readInt();
+                    if (length < 0) break;
+
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (crc != crcOf(payload)) break;
+
+                    if (ModelCodec.isLegacyPayload(payload)) legacyRecords++;
+                    Bill bill = decodePayload(payload);
+                    bills.add(bill);
+                    max = Math.max(max, billNumber);
+                    goodOffset += HEADER_BYTES + length;
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+
+        // a torn last write (crash mid-append) is cut off so the next append starts clean
+        truncateTo(goodOffset);
+
+        maxBillNumber = max;
+        recordCount = bills.size();
+
+        // records written before the binary codec are converted once
+        if (legacyRecords > 0) rewrite(bills);
+        return bills;
+    }
+
+    // compaction / bulk import: replaces the whole journal with the given bills
+    public synchronized void rewrite(List<Bill> bills) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        int max = 0;
+        int count = 0;
+
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            for (Bill b : bills) {
+                if (b == null) continue;
+                out.write(encodeRecord(b));
+                max = Math.max(max, b.getBillNumber());
+                count++;
+            }
+        }
+
+        ModelCodec.replace(tmp, file);
+
+        maxBillNumber = max;
+        recordCount = count;
+    }
+
+    // appends go through the page cache; this makes them durable
+    public synchronized void force() throws IOException {
+        if (!file.exists()) return;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+    }
+
+    public synchronized int getMaxBillNumber() throws IOException {
+        ensureScanned();
+        return maxBillNumber;
+    }
+
+    public synchronized int getRecordCount() throws IOException {
+        ensureScanned();
+        return recordCount;
+    }
+
+    // reads only the record headers and skips payloads
+    private void ensureScanned() throws IOException {
+        if (maxBillNumber >= 0) return;
+
+        int max = 0;
+        int count = 0;
+        long goodOffset = 0;
+
+        if (file.exists()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                long len = raf.length();
+                while (goodOffset + HEADER_BYTES <= len) {
+                    raf.seek(goodOffset);
+                    int length = raf.readInt();
+                    raf.readInt(); // crc, checked on replay
+                    int billNumber = raf.readInt();
+                    if (length < 0 || goodOffset + HEADER_BYTES + length > len) break;
+
+                    max = Math.max(max, billNumber);
+                    count++;
+                    goodOffset += HEADER_BYTES + length;
+                }
+            }
+            truncateTo(goodOffset);
+        }
+
+        maxBillNumber = max;
+        recordCount = count;
+    }
+
+    private void truncateTo(long offset) throws IOException {
+        if (!file.exists() || file.length() == offset) return;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(offset);
+        }
+    }
+
+    private static byte[] encodeRecord(Bill bill) throws IOException {
+        byte[] payload = ModelCodec.encode(ModelCodec.KIND_BILL_RECORD, w -> w.writeObject(bill));
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream(HEADER_BYTES + payload.length);
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeInt(payload.length);
+        out.writeInt(crcOf(payload));
+        out.writeInt(bill.getBillNumber());
+        out.write(payload);
+        out.flush();
+        return record.toByteArray();
+    }
+
+    private static Bill decodePayload(byte[] payload) throws IOException {
+        if (ModelCodec.isLegacyPayload(payload)) {
+            return (Bill) ModelCodec.readLegacy(new ByteArrayInputStream(payload));
+        }
+        return ModelCodec.decode(payload, ModelCodec.KIND_BILL_RECORD, r -> r.readObject(Bill.class));
+    }
+
+    private static int crcOf(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,57 @@
+package clementechModel;
+
+import java.io.Serializable;
+
+// one line of a bill: which item, how many, and the price / discount / sector at the time of sale.
+// a stored bill keeps only these, never the Item objects themselves.
+// sector is null on lines stored before it was recorded
+public record BillLine(String itemId, String itemName, int quantity, double unitPrice, double discountPercentage,
+                       Sector sector) implements Serializable {
+
+    public BillLine {
+        if (itemId == null || itemId.isBlank()) throw new IllegalArgumentException("Item id cannot be empty.");
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+        itemName = itemName == null ? "" : itemName;
+        // discountPercentage is 0 to 100 (checkout uses /100.0)
+        if (discountPercentage < 0) discountPercentage = 0;
+        if (discountPercentage > 100) discountPercentage = 100;
+    }
+
+    static BillLine of(Item item, int quantity) {
+        return new BillLine(item.getItemId(), item.getItemName(), quantity,
+                item.getSellingPrice(), item.getDiscountPercentage(), item.getSector());
+    }
+
+    // same item sold at the same price and discount
+    boolean sameSaleAs(Item item) {
+        return itemId.equalsIgnoreCase(item.getItemId())
+                && unitPrice == item.getSellingPrice()
+                && discountPercentage == Math.max(0, Math.min(100, item.getDiscountPercentage()));
+    }
+
+    BillLine withQuantity(int q) {
+        return new BillLine(itemId, itemName, q, unitPrice, discountPercentage, sector);
+    }
+
+    // cents per unit are rounded first, so a line is always unit x quantity (see PricingEngine)
+    public long getTotalCents() {
+        return PricingEngine.toCents(unitPrice) * quantity;
+    }
+
+    public long getDiscountCents() {
+        return PricingEngine.discountCents(PricingEngine.toCents(unitPrice), discountPercentage) * quantity;
+    }
+
+    public double getTotal() {
+        return PricingEngine.toAmount(getTotalCents());
+    }
+
+    public double getDiscount() {
+        return PricingEngine.toAmount(getDiscountCents());
+    }
+
+    public String getLineInfo() {
+        return "ID: " + itemId + " Item name: " + itemName + " Qty: " + quantity + " Price: " + unitPrice
+                + (discountPercentage > 0 ? " Discount: " + discountPercentage + "%" : "");
+    }
+}
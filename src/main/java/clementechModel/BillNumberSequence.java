@@ -0,0 +1,94 @@
+package clementechModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+// hands out bill numbers (hi/lo). billnumbers.seq holds the first number no process has taken;
+// a process takes BLOCK numbers at a time by moving it forward under a file lock, then gives
+// them out from memory. two windows or processes never get the same number, and nothing has to
+// read the bills to know where to continue. numbers of a block left unused when the process
+// exits are skipped, so bill numbers are unique and increasing per process but may have gaps
+public class BillNumberSequence {
+
+    static final int BLOCK = 32;
+
+    private static final BillNumberSequence INSTANCE =
+            new BillNumberSequence(new File("billnumbers.seq"), () -> DataStorage.getHighestBillNumber() + 1);
+
+    public static BillNumberSequence get() {
+        return INSTANCE;
+    }
+
+    private final File file;
+    // first number when the counter file does not exist yet (data from before the sequence)
+    private final IntSupplier seed;
+
+    // numbers cursor .. limit-1 belong to this process
+    private int cursor;
+    private int limit;
+
+    BillNumberSequence(File file, IntSupplier seed) {
+        this.file = file;
+        this.seed = seed;
+    }
+
+    public int next() {
+        synchronized (this) {
+            if (cursor < limit) return cursor++;
+        }
+        // outside the lock: the seed reads the bill store, which may call ensureAbove
+        int floor = file.exists() ? 1 : Math.max(1, seed.getAsInt());
+        synchronized (this) {
+            if (cursor >= limit) {
+                int[] start = new int[1];
+                update(stored -> {
+                    start[0] = Math.max(stored, floor);
+                    return start[0] + BLOCK;
+                });
+                // only numbers the file has recorded as taken are given out
+                cursor = start[0];
+                limit = cursor + BLOCK;
+            }
+            return cursor++;
+        }
+    }
+
+    // a bill numbered somewhere else (recovered, migrated): later numbers come after it
+    public synchronized void ensureAbove(int number) {
+        if (number < cursor) return;
+        cursor = limit;
+        update(stored -> Math.max(stored, number + 1));
+    }
+
+    // read -> change -> write of the counter, locked against other processes
+    private void update(IntUnaryOperator change) {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = ch.lock();
+            try {
+                ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES);
+                while (buf.hasRemaining() && ch.read(buf, buf.position()) > 0) { }
+                int stored = buf.position() == Integer.BYTES ? buf.flip().getInt() : 1;
+
+                int next = change.applyAsInt(stored);
+                if (next == stored) return;
+
+                buf.clear();
+                buf.putInt(next).flip();
+                while (buf.hasRemaining()) ch.write(buf, buf.position());
+                ch.force(false);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to allocate bill numbers: " + e.getMessage(), e);
+        }
+    }
+}
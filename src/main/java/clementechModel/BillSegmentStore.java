@@ -0,0 +1,315 @@
+package clementechModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// bills partitioned into one journal per day (billsegments/bills-YYYY-MM-DD.journal).
+// a small manifest keeps date range, row count, highest bill number and byte length of
+// every segment, so date range queries only open the days they overlap
+public class BillSegmentStore {
+
+    private static final String PREFIX = "bills-";
+    private static final String SUFFIX = ".journal";
+    private static final String UNDATED = "undated";
+
+    private final File dir;
+    private final File manifestFile;
+
+    private final TreeMap<LocalDate, Segment> segments = new TreeMap<>();
+    private Segment undated;
+    private boolean opened = false;
+
+    // segments appended to since the last force()
+    private final Set<Segment> unsynced = new LinkedHashSet<>();
+
+    static class Segment {
+        final String key;
+        final BillJournal journal;
+        final File file;
+        LocalDate from;
+        LocalDate to;
+        int rows;
+        int maxBillNumber;
+        long length;
+
+        Segment(File dir, String key) {
+            this.key = key;
+            this.file = new File(dir, PREFIX + key + SUFFIX);
+            this.journal = new BillJournal(file.getPath());
+        }
+    }
+
+    public BillSegmentStore(String dirName) {
+        this.dir = new File(dirName);
+        this.manifestFile = new File(dir, "manifest.dat");
+    }
+
+    // true once any bill has been stored in segments
+    public synchronized boolean exists() throws IOException {
+        open();
+        return !segments.isEmpty() || undated != null || manifestFile.exists();
+    }
+
+    public synchronized void append(Bill bill) throws IOException {
+        if (bill == null) throw new IllegalArgumentException("Bill cannot be null.");
+        open();
+
+        Segment s = segmentFor(bill.getDateBillIsGettingCut(), true);
+        s.journal.append(bill);
+        track(s, bill);
+        s.length = s.file.length();
+        unsynced.add(s);
+        writeManifest();
+    }
+
+    // appends in order and writes the manifest once; each bill is taken off the queue only
+    // after it is on disk, so on failure the queue holds exactly what is still missing
+    public synchronized void appendAll(Deque<Bill> queue) throws IOException {
+        open();
+        boolean wrote = false;
+        try {
+            while (!queue.isEmpty()) {
+                Bill bill = queue.peekFirst();
+                Segment s = segmentFor(bill.getDateBillIsGettingCut(), true);
+                s.journal.append(bill);
+                track(s, bill);
+                s.length = s.file.length();
+                unsynced.add(s);
+                queue.pollFirst();
+                wrote = true;
+            }
+        } finally {
+            if (wrote) writeManifest();
+        }
+    }
+
+    // only the segments whose dates fall inside [from, to] are read
+    public synchronized ArrayList<Bill> loadBetween(LocalDate from, LocalDate to) throws IOException {
+        open();
+        ArrayList<Bill> out = new ArrayList<>();
+        if (from == null || to == null || to.isBefore(from)) return out;
+
+        for (Segment s : segments.subMap(from, true, to, true).values()) {
+            out.addAll(readSegment(s));
+        }
+        return out;
+    }
+
+    public synchronized ArrayList<Bill> loadAll() throws IOException {
+        open();
+        ArrayList<Bill> out = new ArrayList<>();
+        for (Segment s : segments.values()) {
+            out.addAll(readSegment(s));
+        }
+        if (undated != null) out.addAll(readSegment(undated));
+        return out;
+    }
+
+    // replaces everything with the given bills (migration / bulk edits)
+    public synchronized void rewriteAll(Collection<Bill> bills) throws IOException {
+        open();
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Could not create " + dir.getPath());
+
+        Map<String, List<Bill>> byKey = new TreeMap<>();
+        for (Bill b : bills) {
+            if (b == null) continue;
+            byKey.computeIfAbsent(keyOf(b.getDateBillIsGettingCut()), k -> new ArrayList<>()).add(b);
+        }
+
+        // drop segments that end up empty
+        for (Segment s : allSegments()) {
+            if (!byKey.containsKey(s.key) && s.file.exists() && !s.file.delete()) {
+                throw new IOException("Could not delete " + s.file.getName());
+            }
+        }
+        segments.clear();
+        undated = null;
+        unsynced.clear();
+
+        for (List<Bill> group : byKey.values()) {
+            Segment s = segmentFor(group.get(0).getDateBillIsGettingCut(), true);
+            s.journal.rewrite(group);
+            for (Bill b : group) track(s, b);
+            s.length = s.file.length();
+        }
+        writeManifest();
+    }
+
+    // bill numbers stored for that day (null = undated), used to skip bills already written
+    public synchronized Set<Integer> getBillNumbers(LocalDate date) throws IOException {
+        open();
+        Set<Integer> numbers = new HashSet<>();
+        Segment s = segmentFor(date, false);
+        if (s == null) return numbers;
+        for (Bill b : readSegment(s)) numbers.add(b.getBillNumber());
+        return numbers;
+    }
+
+    // fsyncs the segments appended to since the last call
+    public synchronized void force() throws IOException {
+        for (Segment s : unsynced) s.journal.force();
+        unsynced.clear();
+    }
+
+    public synchronized int getRowCount() throws IOException {
+        open();
+        int rows = 0;
+        for (Segment s : allSegments()) rows += s.rows;
+        return rows;
+    }
+
+    public synchronized int getMaxBillNumber() throws IOException {
+        open();
+        int max = 0;
+        for (Segment s : allSegments()) max = Math.max(max, s.maxBillNumber);
+        return max;
+    }
+
+    //  segments
+    private Segment segmentFor(LocalDate date, boolean create) throws IOException {
+        if (date == null) {
+            if (undated == null && create) undated = newSegment(UNDATED);
+            return undated;
+        }
+        Segment s = segments.get(date);
+        if (s == null && create) {
+            s = newSegment(date.toString());
+            segments.put(date, s);
+        }
+        return s;
+    }
+
+    private Segment newSegment(String key) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Could not create " + dir.getPath());
+        return new Segment(dir, key);
+    }
+
+    private ArrayList<Bill> readSegment(Segment s) throws IOException {
+        ArrayList<Bill> bills = s.journal.replay();
+
+        // a crash between an append and the manifest write leaves the manifest one step behind
+        long length = s.file.length();
+        if (bills.size() != s.rows || length != s.length) {
+            resetStats(s, bills, length);
+            writeManifest();
+        }
+        return bills;
+    }
+
+    private static void track(Segment s, Bill b) {
+        LocalDate d = b.getDateBillIsGettingCut();
+        if (d != null) {
+            if (s.from == null || d.isBefore(s.from)) s.from = d;
+            if (s.to == null || d.isAfter(s.to)) s.to = d;
+        }
+        s.rows++;
+        s.maxBillNumber = Math.max(s.maxBillNumber, b.getBillNumber());
+    }
+
+    private static void resetStats(Segment s, List<Bill> bills, long length) {
+        s.from = null;
+        s.to = null;
+        s.rows = 0;
+        s.maxBillNumber = 0;
+        for (Bill b : bills) track(s, b);
+        s.length = length;
+    }
+
+    private List<Segment> allSegments() {
+        List<Segment> all = new ArrayList<>(segments.values());
+        if (undated != null) all.add(undated);
+        return all;
+    }
+
+    private static String keyOf(LocalDate date) {
+        return date == null ? UNDATED : date.toString();
+    }
+
+    //  manifest
+    private void open() throws IOException {
+        if (opened) return;
+        opened = true;
+
+        boolean dirty = false;
+        if (manifestFile.exists()) {
+            ModelCodec.readFile(manifestFile, ModelCodec.KIND_BILL_MANIFEST, r -> {
+                int count = r.readVarInt();
+                for (int i = 0; i < count; i++) {
+                    String key = r.readString();
+                    Segment s = new Segment(dir, key);
+                    s.from = r.readDate();
+                    s.to = r.readDate();
+                    s.rows = r.readVarInt();
+                    s.maxBillNumber = r.readVarInt();
+                    s.length = r.readVarLong();
+                    put(s);
+                }
+                return null;
+            });
+        }
+
+        // segment files the manifest does not know about (manifest lost or written before them)
+        File[] files = dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File f : files) {
+                String key = f.getName().substring(PREFIX.length(), f.getName().length() - SUFFIX.length());
+                if (known(key)) continue;
+                Segment s = new Segment(dir, key);
+                resetStats(s, s.journal.replay(), s.file.length());
+                put(s);
+                dirty = true;
+            }
+        }
+
+        // only a length check here, so opening stays cheap with years of history
+        for (Segment s : allSegments()) {
+            if (s.file.length() != s.length) {
+                resetStats(s, s.journal.replay(), s.file.length());
+                dirty = true;
+            }
+        }
+
+        if (dirty) writeManifest();
+    }
+
+    private boolean known(String key) {
+        if (UNDATED.equals(key)) return undated != null;
+        try {
+            return segments.containsKey(LocalDate.parse(key));
+        } catch (RuntimeException e) {
+            return true; // not one of ours, leave it alone
+        }
+    }
+
+    private void put(Segment s) {
+        if (UNDATED.equals(s.key)) undated = s;
+        else segments.put(LocalDate.parse(s.key), s);
+    }
+
+    private void writeManifest() throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Could not create " + dir.getPath());
+
+        List<Segment> all = allSegments();
+        ModelCodec.writeFile(manifestFile, ModelCodec.KIND_BILL_MANIFEST, w -> {
+            w.writeVarInt(all.size());
+            for (Segment s : all) {
+                w.writeString(s.key);
+                w.writeDate(s.from);
+                w.writeDate(s.to);
+                w.writeVarInt(s.rows);
+                w.writeVarInt(s.maxBillNumber);
+                w.writeVarLong(s.length);
+            }
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package clementechModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+// the StockLedger holds of one open cart, one per item id (trimmed, lower case like Item.equals).
+// the checkout screen and the scan benchmark both put scans into a cart through here
+public class CartHolds {
+
+    // what one scan pulse added: units per item in scan order, items that got fewer units than
+    // scanned, and the last item that got any
+    public record Applied(Map<Item, Integer> added, List<String> shortItems, Item last) {}
+
+    private final Map<String, StockLedger.Hold> holds = new HashMap<>();
+    private final StockLedger ledger = StockLedger.get();
+
+    // every item of the batch gets as many of its scanned units as are free, in one hold change.
+    // inCart = units of the item the cart already has (held again if its hold expired)
+    public Applied apply(ScanBuffer.Batch batch, ToIntFunction<Item> inCart) {
+        Map<Item, Integer> added = new LinkedHashMap<>();
+        List<String> shortItems = new ArrayList<>();
+        Item last = null;
+
+        for (Map.Entry<Item, Integer> e : batch.quantities().entrySet()) {
+            Item item = e.getKey();
+            int qty = Math.min(e.getValue(), Math.max(0, available(item)));
+            if (qty < e.getValue()) shortItems.add(item.getItemName());
+            if (qty > 0 && hold(item, qty, inCart.applyAsInt(item))) {
+                added.put(item, qty);
+                last = item;
+            }
+        }
+        return new Applied(added, shortItems, last);
+    }
+
+    // qty more units of the item; false if other carts or the stock leave too few
+    public boolean hold(Item item, int qty, int inCart) {
+        String id = key(item.getItemId());
+        StockLedger.Hold h = holds.get(id);
+        if (h != null && h.isActive()) return ledger.grow(h, item, qty);
+
+        // first unit, or the hold expired while the cart was left open: hold the whole line again
+        StockLedger.Hold fresh = ledger.reserve(item, inCart + qty);
+        if (fresh == null) return false;
+        holds.put(id, fresh);
+        return true;
+    }
+
+    // the line's units go back to the free stock
+    public void release(String itemId) {
+        ledger.release(holds.remove(key(itemId)));
+    }
+
+    // the cart is dropped
+    public void releaseAll() {
+        for (StockLedger.Hold h : holds.values()) ledger.release(h);
+        holds.clear();
+    }
+
+    // after a commit: DataStorage.commitBill already committed the holds
+    public void clear() {
+        holds.clear();
+    }
+
+    public Collection<StockLedger.Hold> holds() {
+        return new ArrayList<>(holds.values());
+    }
+
+    // the cart is still open: keeps its holds from expiring
+    public void touch() {
+        for (StockLedger.Hold h : holds.values()) ledger.touch(h);
+    }
+
+    // free stock for every lane: this cart's units are held too
+    public int available(Item item) {
+        return ledger.available(item);
+    }
+
+    private static String key(String itemId) {
+        return itemId == null ? "" : itemId.trim().toLowerCase();
+    }
+}
@@ -12,10 +12,19 @@ public class Cashier extends Employee implements Serializable{
     private static final long serialVersionUID = 1L;
 
     private Set<Sector> sectors = new HashSet<>();
-    private ArrayList<Bill> totalBills;
+    // bills live in the bill store (DataStorage); this only carries bills embedded by older
+    // versions of cashiers.dat until DataStorage moves them there
+    ArrayList<Bill> totalBills;
     Manager manager;
+    // stored link to the manager; manager is resolved from it when employees are loaded
+    int managerId;
     int totalBillNumbers = 0;
 
+    Cashier()
+    {
+        this.totalBills = new ArrayList<>();
+    }
+
     public Cashier(int employeeId, String firstName, String lastName, LocalDate dateOfBirth, String phone,
                    String email, double salary, Manager manager) {
 
@@ -24,7 +33,7 @@ public class Cashier extends Employee implements Serializable{
         permissions.add(Permission.VIEW_BILL);
         sectors = new HashSet<>();
         this.totalBills = new ArrayList<>();
-        this.manager = manager;
+        setManager(manager);
 
 
     }
@@ -49,7 +58,6 @@ public class Cashier extends Employee implements Serializable{
         }
         try {
             Bill bill = new Bill(buyerInfo, this.getUsername());
-            totalBills.add(bill);
             totalBillNumbers++;
             return bill;
         } catch (Exception e) {
@@ -67,8 +75,8 @@ public class Cashier extends Employee implements Serializable{
         boolean found = false;
         StringBuilder sb = new StringBuilder();
 
-        for (Bill bill : totalBills) {
-            if (bill.getDateBillIsGettingCut().equals(today)) {
+        for (Bill bill : DataStorage.loadBillsBetween(today, today)) {
+            if (getUsername().equalsIgnoreCase(bill.getCreatedByUsername())) {
                 sb.append(bill.getBillInfo());
                 found = true;
             }
@@ -82,16 +90,22 @@ public class Cashier extends Employee implements Serializable{
     public Set<Sector> getSectors() {
         return sectors;
     }
+    // read from the bill store, so it includes bills made on other machines / sessions
     public ArrayList<Bill> getBills()
     {
-        return totalBills;
+        return DataStorage.loadBillsCreatedBy(getUsername());
     }
 
     public Manager getManager() {
         return manager;
     }
 
+    public int getManagerId() {
+        return manager != null ? manager.getEmployeeId() : managerId;
+    }
+
     public void setManager(Manager manager) {
         this.manager = manager;
+        this.managerId = manager == null ? 0 : manager.getEmployeeId();
     }
 }
\ No newline at end of file
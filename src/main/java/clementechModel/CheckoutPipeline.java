@@ -0,0 +1,146 @@
+package clementechModel;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// finalizes checkouts off the UI thread, one at a time and in order:
+// validate -> reserve stock -> write journal (commit.log) -> render receipt -> publish.
+// a ticket's committed future completes once the bill is durable, so the lane can start the
+// next cart; done completes after the receipt and the listeners, or with the first failure
+public class CheckoutPipeline {
+
+    public enum Stage { VALIDATING, RESERVING, COMMITTING, RENDERING_RECEIPT, PUBLISHING, DONE }
+
+    public record Ticket(CompletableFuture<Bill> committed, CompletableFuture<Bill> done) {}
+
+    private static final CheckoutPipeline INSTANCE = new CheckoutPipeline();
+
+    public static CheckoutPipeline get() {
+        return INSTANCE;
+    }
+
+    // bill numbers and the commit order stay the order the lanes pressed finalize
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "clementech-checkout");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // held weakly like the ItemRepository listeners: a screen dropped from the cache unsubscribes itself
+    private final List<WeakReference<Consumer<Bill>>> listeners = new CopyOnWriteArrayList<>();
+
+    private CheckoutPipeline() {
+    }
+
+    // told about every finalized bill, on the pipeline thread; keep l in a field
+    public void addListener(Consumer<Bill> l) {
+        listeners.add(new WeakReference<>(Objects.requireNonNull(l, "listener")));
+    }
+
+    public void removeListener(Consumer<Bill> l) {
+        listeners.removeIf(ref -> ref.get() == null || ref.get() == l);
+    }
+
+    // quantities and holds are copied; progress is called on the pipeline thread
+    // (DONE on the persistence thread, once the receipt is archived)
+    public Ticket submit(Cashier cashier, String buyerInfo, Map<Item, Integer> quantities,
+                         Collection<StockLedger.Hold> holds, Consumer<Stage> progress) {
+        Map<Item, Integer> cart = new LinkedHashMap<>(quantities);
+        List<StockLedger.Hold> cartHolds = new ArrayList<>(holds);
+        int ownHolds = cartHolds.size();
+        Consumer<Stage> report = progress == null ? s -> {} : progress;
+
+        CompletableFuture<Bill> committed = new CompletableFuture<>();
+        CompletableFuture<Bill> done = new CompletableFuture<>();
+
+        worker.execute(() -> {
+            Bill bill = null;
+            try {
+                report.accept(Stage.VALIDATING);
+                if (cashier == null) throw new IllegalArgumentException("Cashier cannot be null.");
+                if (cart.isEmpty()) throw new IllegalArgumentException("Add at least one item before finalizing.");
+                bill = cashier.createBill(buyerInfo);
+
+                report.accept(Stage.RESERVING);
+                reserveMissing(cart, cartHolds);
+
+                report.accept(Stage.COMMITTING);
+                DataStorage.commitBill(bill, cart, cartHolds);
+                committed.complete(bill);
+            } catch (Throwable e) {
+                // holds taken here go back; the cart keeps its own for another try
+                for (StockLedger.Hold h : cartHolds.subList(ownHolds, cartHolds.size())) {
+                    StockLedger.get().release(h);
+                }
+                committed.completeExceptionally(e);
+                done.completeExceptionally(e);
+                return;
+            }
+
+            Bill finalized = bill;
+            try {
+                report.accept(Stage.RENDERING_RECEIPT);
+                // the text is rendered now; the archive append joins the persistence queue,
+                // the next checkout does not wait for it
+                CompletableFuture<Void> archived = ReceiptWriter.get().submit(finalized);
+
+                report.accept(Stage.PUBLISHING);
+                for (WeakReference<Consumer<Bill>> ref : listeners) {
+                    Consumer<Bill> l = ref.get();
+                    if (l == null) {
+                        listeners.remove(ref);
+                        continue;
+                    }
+                    try {
+                        l.accept(finalized);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+
+                archived.whenComplete((v, e) -> {
+                    if (e != null) {
+                        done.completeExceptionally(e);
+                        return;
+                    }
+                    report.accept(Stage.DONE);
+                    done.complete(finalized);
+                });
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        });
+
+        return new Ticket(committed, done);
+    }
+
+    // units of the cart without a live hold (expired, or a caller without a ledger) are held now
+    private static void reserveMissing(Map<Item, Integer> cart, List<StockLedger.Hold> holds) {
+        Map<String, Integer> held = new LinkedHashMap<>();
+        for (StockLedger.Hold h : holds) {
+            if (h.isActive()) held.merge(h.getItemId(), h.getUnits(), Integer::sum);
+        }
+
+        for (Map.Entry<Item, Integer> e : cart.entrySet()) {
+            String id = e.getKey().getItemId().trim().toLowerCase();
+            int missing = e.getValue() - held.getOrDefault(id, 0);
+            if (missing <= 0) continue;
+
+            StockLedger.Hold h = StockLedger.get().reserve(e.getKey(), missing);
+            if (h == null) {
+                throw new IllegalArgumentException("Not enough stock left for " + e.getKey().getItemName() + ".");
+            }
+            holds.add(h);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package clementechModel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// redo log for checkout. one finalized bill = one record holding the bill and the stock /
+// sold deltas of its items, written with a single fsync; that record is the commit.
+// the bill segments and the item slots catch up later and are replayed from here after a crash.
+// file layout: [int magic][int reserved][long baseTx] then records
+// record layout: [int payloadLength][int crc32][long tx][payload]
+public class CommitLog {
+
+    private static final int MAGIC = 0x434C4F47; // "CLOG"
+    private static final int FILE_HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 16;
+
+    public record Record(long tx, Bill bill, Map<String, int[]> deltas) {}
+
+    private final File file;
+    private FileChannel channel;
+
+    // transaction ids keep counting across checkpoints: item slots remember them
+    private long baseTx = 0;
+    private long lastTx = 0;
+    private int recordCount = 0;
+
+    public CommitLog(String fileName) {
+        this.file = new File(fileName);
+    }
+
+    // appends and fsyncs one record; returns its transaction id
+    public synchronized long append(Bill bill, Map<String, int[]> deltas) throws IOException {
+        open();
+        long tx = lastTx + 1;
+
+        ByteBuffer record = ByteBuffer.wrap(encodeRecord(tx, bill, deltas));
+
+        long end = channel.size();
+        try {
+            while (record.hasRemaining()) channel.write(record, end + record.position());
+            channel.force(false);
+        } catch (IOException e) {
+            // a half-written record must not be followed by the next one
+            channel.truncate(end);
+            throw e;
+        }
+
+        lastTx = tx;
+        recordCount++;
+        return tx;
+    }
+
+    public synchronized long getLastTx() throws IOException {
+        open();
+        return lastTx;
+    }
+
+    public synchronized int getRecordCount() throws IOException {
+        open();
+        return recordCount;
+    }
+
+    // every complete record, oldest first; a torn tail is cut off
+    public synchronized List<Record> readAll() throws IOException {
+        open();
+        List<Record> out = new ArrayList<>();
+        long pos = FILE_HEADER_BYTES;
+        long size = channel.size();
+
+        while (pos + RECORD_HEADER_BYTES <= size) {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            readFully(header, pos);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            long tx = header.getLong();
+            if (length < 0 || pos + RECORD_HEADER_BYTES + length > size) break;
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, pos + RECORD_HEADER_BYTES);
+            if (crcOf(payload.array()) != crc) break;
+
+            out.add(ModelCodec.decode(payload.array(), ModelCodec.KIND_COMMIT_RECORD, r -> {
+                Bill bill = r.readObject(Bill.class);
+                int n = r.readVarInt();
+                Map<String, int[]> deltas = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) {
+                    String itemId = r.readString();
+                    deltas.put(itemId, new int[]{r.readSignedInt(), r.readSignedInt()});
+                }
+                return new Record(tx, bill, deltas);
+            }));
+            pos += RECORD_HEADER_BYTES + length;
+        }
+
+        if (pos != size) channel.truncate(pos);
+        return out;
+    }
+
+    // drops every record up to and including tx (their changes are durable in the stores)
+    public synchronized void truncateThrough(long tx) throws IOException {
+        open();
+        List<Record> keep = new ArrayList<>();
+        for (Record r : readAll()) {
+            if (r.tx() > tx) keep.add(r);
+        }
+        long newBase = Math.max(baseTx, Math.min(tx, lastTx));
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = fileHeader(newBase);
+            while (header.hasRemaining()) out.write(header);
+
+            for (Record r : keep) {
+                ByteBuffer buf = ByteBuffer.wrap(encodeRecord(r.tx(), r.bill(), r.deltas()));
+                while (buf.hasRemaining()) out.write(buf);
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        channel = null;
+        ModelCodec.replace(tmp, file);
+        open();
+    }
+
+    private static byte[] encodeRecord(long tx, Bill bill, Map<String, int[]> deltas) throws IOException {
+        byte[] payload = ModelCodec.encode(ModelCodec.KIND_COMMIT_RECORD, w -> {
+            w.writeObject(bill);
+            w.writeVarInt(deltas.size());
+            for (Map.Entry<String, int[]> e : deltas.entrySet()) {
+                w.writeString(e.getKey());
+                w.writeSignedInt(e.getValue()[0]);
+                w.writeSignedInt(e.getValue()[1]);
+            }
+        });
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_HEADER_BYTES + payload.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(payload.length);
+        out.writeInt(crcOf(payload));
+        out.writeLong(tx);
+        out.write(payload);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void open() throws IOException {
+        if (channel != null) return;
+
+        boolean fresh = !file.exists() || file.length() < FILE_HEADER_BYTES;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (fresh) {
+            channel.truncate(0);
+            ByteBuffer header = fileHeader(0);
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.force(true);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IOException(file.getName() + " is not a commit log.");
+        header.getInt();
+        baseTx = header.getLong();
+
+        // header-only scan for lastTx / recordCount
+        lastTx = baseTx;
+        recordCount = 0;
+        long pos = FILE_HEADER_BYTES;
+        long size = channel.size();
+        while (pos + RECORD_HEADER_BYTES <= size) {
+            ByteBuffer rh = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            readFully(rh, pos);
+            rh.flip();
+            int length = rh.getInt();
+            rh.getInt();
+            long tx = rh.getLong();
+            if (length < 0 || pos + RECORD_HEADER_BYTES + length > size) break;
+            lastTx = Math.max(lastTx, tx);
+            recordCount++;
+            pos += RECORD_HEADER_BYTES + length;
+        }
+    }
+
+    private static ByteBuffer fileHeader(long baseTx) {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        header.putInt(MAGIC).putInt(0).putLong(baseTx).flip();
+        return header;
+    }
+
+    private void readFully(ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, pos + buf.position());
+            if (n < 0) throw new IOException("Unexpected end of " + file.getName());
+        }
+    }
+
+    private static int crcOf(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
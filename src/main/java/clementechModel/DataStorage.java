@@ -1,21 +1,51 @@
 package clementechModel;
 
+import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+// all files are written with ModelCodec; files still in the old ObjectOutputStream format
+// are read once, backed up as <name>.bak and rewritten in the new format
 public class DataStorage {
 
+    private static final File MANAGERS_FILE = new File("managers.dat");
+    private static final File CASHIERS_FILE = new File("cashiers.dat");
+    private static final File SUPPLIERS_FILE = new File("suppliers.dat");
+    private static final File ADMIN_FILE = new File("admin.dat");
+    private static final File PURCHASES_FILE = new File("purchases.dat");
+    private static final File PROMOTIONS_FILE = new File("promotions.dat");
+    private static final File SALES_ROLLUP_FILE = new File("salesrollup.dat");
+    private static final SalesRollupLog salesRollupLog = new SalesRollupLog("salesrollup.log");
 
+    // the *Async saves are written by this background thread; loads of the same file wait
+    // for them first, so a screen always reads what the previous one saved
+    private static final PersistenceExecutor persistence = PersistenceExecutor.get();
 
+
+    // employees only store ids of each other and of items (cashier -> manager, admin -> managers,
+    // manager -> inventory items); loading a list reads the other employee file to link them.
+    // bills stay in the bill store and purchases in purchases.dat, so these files only grow
+    // with the number of employees
     public static void saveManagers(ArrayList<Manager> managerList) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("managers.dat"))) {
-            Manager[] managerArray = managerList.toArray(new Manager[0]);
-            oos.writeObject(managerArray);
+        try {
+            savePurchases(managerList);
+            ModelCodec.writeListFile(MANAGERS_FILE, ModelCodec.KIND_MANAGERS, managerList);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -23,119 +53,642 @@ public class DataStorage {
 
 
     public static ArrayList<Manager> loadManagers() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("managers.dat"))) {
-            Manager[] managerArray = (Manager[]) ois.readObject();
-            ArrayList<Manager> managerList = new ArrayList<>();
-            for (Manager m : managerArray) {
-                managerList.add(m);
-            }
-            return managerList;
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
-        }
+        ArrayList<Manager> managers = loadList(MANAGERS_FILE, ModelCodec.KIND_MANAGERS, Manager.class);
+        linkEmployees(managers, loadList(CASHIERS_FILE, ModelCodec.KIND_CASHIERS, Cashier.class));
+        resolveInventories(managers);
+
+        // older files embedded the purchases: move them to purchases.dat once
+        boolean embedded = false;
+        for (Manager m : managers) embedded |= m.purchasesChanged;
+        if (embedded) saveManagers(managers);
+        return managers;
     }
 
 
     public static void saveCashiers(ArrayList<Cashier> cashiers) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("cashiers.dat"))) {
-            Cashier[] cashierArray = cashiers.toArray(new Cashier[0]);
-            oos.writeObject(cashierArray);
+        try {
+            ModelCodec.writeListFile(CASHIERS_FILE, ModelCodec.KIND_CASHIERS, cashiers);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     public static ArrayList<Cashier> loadCashiers() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("cashiers.dat"))) {
-            Cashier[] cashierArray = (Cashier[]) ois.readObject();
-            ArrayList<Cashier> cashierList = new ArrayList<>();
-            for (Cashier c : cashierArray) cashierList.add(c);
-            return cashierList;
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
+        ArrayList<Cashier> cashiers = loadList(CASHIERS_FILE, ModelCodec.KIND_CASHIERS, Cashier.class);
+        ArrayList<Manager> managers = loadList(MANAGERS_FILE, ModelCodec.KIND_MANAGERS, Manager.class);
+        linkEmployees(managers, cashiers);
+        resolveInventories(managers);
+
+        // older files embedded the cashiers' bills: move any the bill store does not have yet
+        if (adoptEmbeddedBills(cashiers)) saveCashiers(cashiers);
+        return cashiers;
+    }
+
+    // purchases of one manager, oldest first
+    public static ArrayList<Item> loadPurchases(int managerId) {
+        ArrayList<Item> list = readPurchases().get(managerId);
+        return list == null ? new ArrayList<>() : list;
+    }
+
+    // rewrites purchases.dat only if a manager's purchases changed
+    private static void savePurchases(List<Manager> managers) throws IOException {
+        List<Manager> changed = new ArrayList<>();
+        for (Manager m : managers) {
+            if (m != null && m.purchasesChanged && m.itemsPurchased != null) changed.add(m);
+        }
+        if (changed.isEmpty()) return;
+
+        Map<Integer, ArrayList<Item>> all = readPurchases();
+        for (Manager m : changed) all.put(m.getEmployeeId(), m.itemsPurchased);
+
+        ModelCodec.writeFile(PURCHASES_FILE, ModelCodec.KIND_PURCHASES, w -> {
+            w.writeVarInt(all.size());
+            for (Map.Entry<Integer, ArrayList<Item>> e : all.entrySet()) {
+                w.writeSignedInt(e.getKey());
+                w.writeObjectList(e.getValue());
+            }
+        });
+        for (Manager m : changed) m.purchasesChanged = false;
+    }
+
+    private static Map<Integer, ArrayList<Item>> readPurchases() {
+        Map<Integer, ArrayList<Item>> all = new TreeMap<>();
+        if (!PURCHASES_FILE.exists()) return all;
+        try {
+            return ModelCodec.readFile(PURCHASES_FILE, ModelCodec.KIND_PURCHASES, r -> {
+                int count = r.readVarInt();
+                for (int i = 0; i < count; i++) {
+                    int managerId = r.readSignedInt();
+                    ArrayList<Item> items = r.readObjectList(Item.class);
+                    all.put(managerId, items == null ? new ArrayList<>() : items);
+                }
+                return all;
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load " + PURCHASES_FILE.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // cashier.managerId is the only stored link; the managers' cashier lists are rebuilt from it
+    private static void linkEmployees(List<Manager> managers, List<Cashier> cashiers) {
+        Map<Integer, Manager> byId = new HashMap<>();
+        for (Manager m : managers) {
+            byId.put(m.getEmployeeId(), m);
+            m.getCashiers().clear();
+        }
+        for (Cashier c : cashiers) {
+            Manager m = byId.get(c.getManagerId());
+            c.manager = m;
+            if (m != null) m.getCashiers().add(c);
+        }
+    }
+
+    private static void resolveInventories(List<Manager> managers) {
+        for (Manager m : managers) {
+            if (m.unresolvedItemIds == null || m.unresolvedItemIds.isEmpty()) continue;
+            List<Item> inventory = m.getInventory().getItemsInInventory();
+            m.unresolvedItemIds.removeIf(id -> {
+                Item it = ItemRepository.get().findById(id);
+                if (it == null) return false;
+                if (!inventory.contains(it)) inventory.add(it);
+                return true;
+            });
+        }
+    }
+
+    // returns true if any cashier still carried bills from an older cashiers.dat
+    private static boolean adoptEmbeddedBills(List<Cashier> cashiers) {
+        ArrayDeque<Bill> embedded = new ArrayDeque<>();
+        for (Cashier c : cashiers) {
+            if (c.totalBills == null || c.totalBills.isEmpty()) continue;
+            embedded.addAll(c.totalBills);
+            c.totalBills.clear();
+        }
+        if (embedded.isEmpty()) return false;
+
+        persistence.awaitPending(BILLS_KEY);
+        try {
+            ensureRecovered();
+            Map<LocalDate, Set<Integer>> stored = new HashMap<>();
+            ArrayDeque<Bill> missing = new ArrayDeque<>();
+            for (Bill b : embedded) {
+                if (b == null) continue;
+                Set<Integer> numbers = stored.get(b.getDateBillIsGettingCut());
+                if (numbers == null) {
+                    numbers = billSegments.getBillNumbers(b.getDateBillIsGettingCut());
+                    stored.put(b.getDateBillIsGettingCut(), numbers);
+                }
+                if (numbers.add(b.getBillNumber())) missing.add(b);
+            }
+            billSegments.appendAll(missing);
+            BillNumberSequence.get().ensureAbove(billSegments.getMaxBillNumber());
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to move bills out of cashiers.dat: " + e.getMessage(), e);
         }
+        return true;
     }
 
 
+    // full item objects in items.dat, hot numbers in the memory-mapped items.slots
+    private static final ItemStore itemStore = new ItemStore("items.dat", "items.slots");
+
     public static void saveItems(ArrayList<Item> items) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("items.dat"))) {
-            Item[] itemArray = items.toArray(new Item[0]);
-            oos.writeObject(itemArray);
+        try {
+            // under the log lock no checkout is half done, so the items hold every committed sale
+            synchronized (commitLog) {
+                itemStore.saveAll(items, commitLog.getLastTx());
+            }
         } catch (IOException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to save items.dat: " + e.getMessage(), e);
         }
     }
 
+    // stock / sold / price / discount / threshold changes only: updates the items' slots in place
+    public static void saveItemNumbers(Collection<Item> changed) {
+        try {
+            synchronized (commitLog) {
+                itemStore.saveNumbers(changed, commitLog.getLastTx());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to update items.slots: " + e.getMessage(), e);
+        }
+    }
+
+    // cheap check used by ItemRepository to notice saves made by another process
+    public static ItemStore.Stamp getItemsStamp() {
+        try {
+            return itemStore.stamp();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to read items.slots: " + e.getMessage(), e);
+        }
+    }
+
     public static ArrayList<Item> loadItems() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("items.dat"))) {
-            Item[] itemArray = (Item[]) ois.readObject();
-            ArrayList<Item> itemList = new ArrayList<>();
-            for (Item i : itemArray) itemList.add(i);
-            return itemList;
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
+        try {
+            ensureRecovered();
+            return itemStore.load();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load items.dat: " + e.getMessage(), e);
+        }
+    }
+
+    // bills live in day segments (billsegments/) with a manifest; bills.dat and the single
+    // bills.journal of earlier versions are only read once to migrate old data
+    private static final String LEGACY_BILLS_FILE = "bills.dat";
+    private static final String LEGACY_JOURNAL_FILE = "bills.journal";
+    private static final BillSegmentStore billSegments = new BillSegmentStore("billsegments");
+
+    // finalized bills waiting for the persistence thread, oldest first
+    private static final ArrayDeque<Bill> pendingBills = new ArrayDeque<>();
+    private static final String BILLS_KEY = "billsegments";
+
+    // one finalized bill = one appended record in its day's segment
+    public static void appendBill(Bill bill) {
+        persistence.awaitPending(BILLS_KEY);
+        try {
+            ensureRecovered();
+            loadSalesRollup();
+            billSegments.append(bill);
+            BillNumberSequence.get().ensureAbove(bill.getBillNumber());
+            rollUp(List.of(bill));
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to append bill: " + e.getMessage(), e);
         }
     }
 
+    // returns at once; bills queued within the coalescing window are appended together
+    public static CompletableFuture<Void> appendBillAsync(Bill bill) {
+        if (bill == null) throw new IllegalArgumentException("Bill cannot be null.");
+        BillNumberSequence.get().ensureAbove(bill.getBillNumber());
+        // the bill screens' totals include it now, not once the batch is written
+        SalesRollup.get().addPending(bill);
+
+        synchronized (pendingBills) {
+            pendingBills.add(bill);
+        }
+        return persistence.submit(BILLS_KEY, DataStorage::writePendingBills);
+    }
+
+    private static void writePendingBills() throws IOException {
+        ArrayDeque<Bill> batch;
+        synchronized (pendingBills) {
+            batch = new ArrayDeque<>(pendingBills);
+            pendingBills.clear();
+        }
+
+        List<Bill> queued = new ArrayList<>(batch);
+        try {
+            migrateLegacyBills();
+            loadSalesRollup();
+            billSegments.appendAll(batch);
+        } finally {
+            // appendAll takes each bill off the batch once it is stored
+            rollUp(queued.subList(0, queued.size() - batch.size()));
+            // whatever was not written goes back to the front for the next attempt
+            if (!batch.isEmpty()) {
+                synchronized (pendingBills) {
+                    Iterator<Bill> it = batch.descendingIterator();
+                    while (it.hasNext()) pendingBills.addFirst(it.next());
+                }
+            }
+        }
+    }
+
+    // rewrites every segment (compaction / bulk edits), not needed for checkout
     public static void saveBills(ArrayList<Bill> billList) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("bills.dat"))) {
-            Bill[] billArray = billList.toArray(new Bill[0]);
-            oos.writeObject(billArray);
+        persistence.awaitPending(BILLS_KEY);
+        try {
+            billSegments.rewriteAll(billList);
+            if (salesRollupLoaded) {
+                // lines stored before their sector was recorded take it from the catalog
+                // (SalesRollup.sectorOf); loaded before the lock, like loadSalesRollup does
+                ItemRepository.get().getItems();
+                synchronized (salesRollupLock) {
+                    rebuildSalesRollup(billList);
+                }
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            throw new RuntimeException("Failed to save bills: " + e.getMessage(), e);
         }
     }
 
 
     public static ArrayList<Bill> loadBills() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("bills.dat"))) {
-            Bill[] billArray = (Bill[]) ois.readObject();
-            ArrayList<Bill> billList = new ArrayList<>();
+        persistence.awaitPending(BILLS_KEY);
+        try {
+            ensureRecovered();
+            return billSegments.loadAll();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load bills: " + e.getMessage(), e);
+        }
+    }
+
+    // bills dated from..to (inclusive); only the overlapping day segments are read
+    public static ArrayList<Bill> loadBillsBetween(LocalDate from, LocalDate to) {
+        persistence.awaitPending(BILLS_KEY);
+        try {
+            ensureRecovered();
+            return billSegments.loadBetween(from, to);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load bills: " + e.getMessage(), e);
+        }
+    }
+
+    // every stored bill made by that user (cashier bill history)
+    public static ArrayList<Bill> loadBillsCreatedBy(String username) {
+        ArrayList<Bill> out = new ArrayList<>();
+        if (username == null || username.isBlank()) return out;
+        for (Bill b : loadBills()) {
+            if (username.trim().equalsIgnoreCase(b.getCreatedByUsername())) out.add(b);
+        }
+        return out;
+    }
+
+    // from the manifest, no bill is read
+    public static int getBillCount() {
+        persistence.awaitPending(BILLS_KEY);
+        try {
+            ensureRecovered();
+            return billSegments.getRowCount();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private static final Object salesRollupLock = new Object();
+    private static volatile boolean salesRollupLoaded = false;
+
+    // once per process, before the first bill reaches the store after it: reads salesrollup.dat
+    // and the rows logged after it, or rebuilds both from the bills if they do not cover exactly
+    // the stored bills
+    static void loadSalesRollup() {
+        if (salesRollupLoaded) return;
+        persistence.awaitPending(BILLS_KEY);
+        // lines stored before their sector was recorded take it from the catalog; loaded before
+        // the lock, the item load may wait for the persistence thread
+        ItemRepository.get().getItems();
+        synchronized (salesRollupLock) {
+            if (salesRollupLoaded) return;
+            SalesRollup rollup = SalesRollup.get();
+            try {
+                ensureRecovered();
+                if (SALES_ROLLUP_FILE.exists()) {
+                    ModelCodec.readFile(SALES_ROLLUP_FILE, ModelCodec.KIND_SALES_ROLLUP, r -> {
+                        rollup.read(r);
+                        return rollup;
+                    });
+                }
+                for (SalesRollup delta : salesRollupLog.readAll()) rollup.merge(delta);
+                if (!SALES_ROLLUP_FILE.exists() || rollup.getBillCount() != billSegments.getRowCount()) {
+                    rebuildSalesRollup(billSegments.loadAll());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                try {
+                    rebuildSalesRollup(billSegments.loadAll());
+                } catch (IOException again) {
+                    again.printStackTrace();
+                    throw new RuntimeException("Failed to load sales rollup: " + again.getMessage(), again);
+                }
+            }
+            salesRollupLoaded = true;
+        }
+    }
+
+    private static void rebuildSalesRollup(List<Bill> bills) throws IOException {
+        SalesRollup rollup = SalesRollup.get();
+        rollup.clear();
+        for (Bill b : bills) rollup.add(b);
+        ModelCodec.writeFile(SALES_ROLLUP_FILE, ModelCodec.KIND_SALES_ROLLUP, rollup::write);
+        salesRollupLog.clear();
+    }
+
+    // bills that just reached the store; their rows are appended, on the same thread
+    private static void rollUp(List<Bill> stored) {
+        if (stored.isEmpty()) return;
+        synchronized (salesRollupLock) {
+            if (!salesRollupLoaded) {
+                SalesRollup.get().stored(stored, null);
+                return;
+            }
+            SalesRollup delta = SalesRollup.of(stored);
+            SalesRollup.get().stored(stored, delta);
+            try {
+                salesRollupLog.append(delta);
+            } catch (IOException e) {
+                // the bill count no longer matches on the next start: the rows are rebuilt then
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // folds salesrollup.log into salesrollup.dat (checkpoint). a crash between the two writes
+    // counts the logged bills twice, which the bill count check on the next load catches
+    private static void compactSalesRollup() throws IOException {
+        synchronized (salesRollupLock) {
+            if (!salesRollupLoaded) return;
+            ModelCodec.writeFile(SALES_ROLLUP_FILE, ModelCodec.KIND_SALES_ROLLUP, SalesRollup.get()::write);
+            salesRollupLog.clear();
+        }
+    }
+
+    // from the manifest; seeds BillNumberSequence when its counter file does not exist yet
+    static int getHighestBillNumber() {
+        persistence.awaitPending(BILLS_KEY);
+        try {
+            ensureRecovered();
+            return billSegments.getMaxBillNumber();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to read bill numbers: " + e.getMessage(), e);
+        }
+    }
+
+    private static void migrateLegacyBills() throws IOException {
+        if (billSegments.exists()) return;
+
+        File journalFile = new File(LEGACY_JOURNAL_FILE);
+        File legacy = new File(LEGACY_BILLS_FILE);
+
+        if (journalFile.exists()) {
+            billSegments.rewriteAll(new BillJournal(LEGACY_JOURNAL_FILE).replay());
+            ModelCodec.backupLegacy(journalFile);
+            if (!journalFile.delete()) journalFile.deleteOnExit();
+            return;
+        }
+        if (!legacy.exists()) return;
+
+        Object stored;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(legacy))) {
+            stored = ModelCodec.readLegacy(in);
+        }
 
-            int max = 0;
+        ArrayList<Bill> billList = new ArrayList<>();
+        if (stored instanceof Bill[] billArray) {
             for (Bill b : billArray) {
-                if (b != null) {
-                    billList.add(b);
-                    if (b.getBillNumber() > max) max = b.getBillNumber();
+                if (b != null) billList.add(b);
+            }
+        }
+        billSegments.rewriteAll(billList);
+        ModelCodec.backupLegacy(legacy);
+    }
+
+    // checkout commit: one fsynced commit.log record per bill (the bill and its stock / sold
+    // deltas). bill segments and item slots are written behind it and caught up from the log
+    // after a crash; a checkpoint drops the records once both stores have them on disk
+    private static final CommitLog commitLog = new CommitLog("commit.log");
+    private static final int CHECKPOINT_RECORDS = 256;
+    private static final AtomicBoolean checkpointing = new AtomicBoolean(false);
+    private static boolean recovered = false;
+
+    // adds qty of each item to the bill (which moves their stock). the record stores the stock /
+    // sold change each item actually saw; if adding or the write fails the bill and the items
+    // are put back as they were, so memory never runs ahead of the log
+    public static void commitBill(Bill bill, Map<Item, Integer> quantities) {
+        commitBill(bill, quantities, List.of());
+    }
+
+    // holds = the cart's StockLedger holds. units other carts hold are not for sale here;
+    // the cart's own holds are committed (released) once the record is on disk
+    public static void commitBill(Bill bill, Map<Item, Integer> quantities, Collection<StockLedger.Hold> holds) {
+        if (bill == null) throw new IllegalArgumentException("Bill cannot be null.");
+        int records;
+        synchronized (commitLog) {
+            try {
+                ensureRecovered();
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Failed to recover commit.log: " + e.getMessage(), e);
+            }
+
+            // restocking on the UI thread waits for the commit instead of being overwritten by it
+            Map<Item, int[]> before = new LinkedHashMap<>();
+            synchronized (Item.STOCK_LOCK) {
+                checkHeldElsewhere(quantities, holds);
+
+                for (Item it : quantities.keySet()) {
+                    before.put(it, new int[]{it.getStockQuantity(), it.getNumberSold()});
+                }
+
+                try {
+                    bill.addLines(quantities);
+                    PromotionEngine.get().apply(bill);
+
+                    Map<String, int[]> deltas = new LinkedHashMap<>();
+                    for (Map.Entry<Item, int[]> e : before.entrySet()) {
+                        Item it = e.getKey();
+                        deltas.put(it.getItemId(), new int[]{
+                                it.getStockQuantity() - e.getValue()[0],
+                                it.getNumberSold() - e.getValue()[1]});
+                    }
+
+                    commitLog.append(bill, deltas);
+                    records = commitLog.getRecordCount();
+                } catch (IOException | RuntimeException e) {
+                    // last line first, the order deleteBillItem takes them off
+                    List<BillLine> added = new ArrayList<>(bill.getLines());
+                    for (int i = added.size() - 1; i >= 0; i--) {
+                        bill.deleteBillItem(added.get(i).itemId(), added.get(i).quantity());
+                    }
+                    for (Map.Entry<Item, int[]> b : before.entrySet()) {
+                        b.getKey().stockQuatity = b.getValue()[0];
+                        b.getKey().numberSold = b.getValue()[1];
+                    }
+                    if (e instanceof RuntimeException re) throw re;
+                    e.printStackTrace();
+                    throw new RuntimeException("Failed to commit bill: " + e.getMessage(), e);
                 }
             }
 
-            //make future bills continue after the largest number
-            Bill.syncNextBillNumber(max + 1);
+            for (StockLedger.Hold h : holds) StockLedger.get().commit(h);
 
-            return billList;
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
+            // queued in commit order
+            appendBillAsync(bill);
+            ItemRepository.get().saveNumbers(before.keySet());
+        }
+
+        if (records >= CHECKPOINT_RECORDS && checkpointing.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    checkpoint();
+                } finally {
+                    checkpointing.set(false);
+                }
+            });
+        }
+    }
+
+    private static void checkHeldElsewhere(Map<Item, Integer> quantities, Collection<StockLedger.Hold> holds) {
+        Map<String, Integer> own = new HashMap<>();
+        for (StockLedger.Hold h : holds) own.merge(h.getItemId(), h.getUnits(), Integer::sum);
+
+        StockLedger ledger = StockLedger.get();
+        for (Map.Entry<Item, Integer> e : quantities.entrySet()) {
+            Item it = e.getKey();
+            String id = it.getItemId().trim().toLowerCase();
+            int free = it.getStockQuantity() - (ledger.held(id) - own.getOrDefault(id, 0));
+            if (free < e.getValue()) {
+                throw new IllegalArgumentException("Cannot sell " + e.getValue() + " x " + it.getItemName()
+                        + ": only " + Math.max(0, free) + " not held by another checkout.");
+            }
         }
     }
+
+    // waits for the queued bill / item writes, fsyncs both stores and cuts the log.
+    // skipped (log kept) while a write keeps failing
+    public static void checkpoint() {
+        try {
+            long upTo;
+            synchronized (commitLog) {
+                ensureRecovered();
+                upTo = commitLog.getLastTx();
+            }
+
+            persistence.awaitPending(BILLS_KEY);
+            ItemRepository.get().flush();
+            synchronized (pendingBills) {
+                if (!pendingBills.isEmpty()) return;
+            }
+            if (ItemRepository.get().hasPendingWrites()) return;
+
+            billSegments.force();
+            itemStore.force();
+            commitLog.truncateThrough(upTo);
+            compactSalesRollup();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to checkpoint commit.log: " + e.getMessage(), e);
+        }
+    }
+
+    // once per process, before the first read of bills or items: replays the records the
+    // stores may not have (slots skip transactions they already hold, bills are matched by number)
+    private static void ensureRecovered() throws IOException {
+        synchronized (commitLog) {
+            if (recovered) return;
+            migrateLegacyBills();
+
+            List<CommitLog.Record> records = commitLog.readAll();
+            if (!records.isEmpty()) {
+                itemStore.load();
+                Map<LocalDate, List<Bill>> byDay = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+                for (CommitLog.Record r : records) {
+                    itemStore.applyDeltas(r.tx(), r.deltas());
+                    byDay.computeIfAbsent(r.bill().getDateBillIsGettingCut(), d -> new ArrayList<>()).add(r.bill());
+                }
+
+                ArrayDeque<Bill> missing = new ArrayDeque<>();
+                for (Map.Entry<LocalDate, List<Bill>> e : byDay.entrySet()) {
+                    Set<Integer> stored = billSegments.getBillNumbers(e.getKey());
+                    for (Bill b : e.getValue()) {
+                        if (!stored.contains(b.getBillNumber())) missing.add(b);
+                    }
+                }
+                billSegments.appendAll(missing);
+
+                billSegments.force();
+                itemStore.force();
+                commitLog.truncateThrough(commitLog.getLastTx());
+            }
+            recovered = true;
+        }
+    }
+
     public static void saveSuppliers(ArrayList<Supplier> supplierList) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("suppliers.dat"))) {
-            Supplier[] supplierArray = supplierList.toArray(new Supplier[0]);
-            oos.writeObject(supplierArray);
+        persistence.awaitPending(SUPPLIERS_FILE.getName());
+        try {
+            ModelCodec.writeListFile(SUPPLIERS_FILE, ModelCodec.KIND_SUPPLIERS, supplierList);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
 
+    // returns at once; the list is copied, so the caller may keep changing its own
+    public static CompletableFuture<Void> saveSuppliersAsync(ArrayList<Supplier> supplierList) {
+        ArrayList<Supplier> snapshot = new ArrayList<>(supplierList);
+        return persistence.submit(SUPPLIERS_FILE.getName(),
+                () -> ModelCodec.writeListFile(SUPPLIERS_FILE, ModelCodec.KIND_SUPPLIERS, snapshot));
+    }
+
     public static ArrayList<Supplier> loadSuppliers() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("suppliers.dat"))) {
-            Supplier[] supplierArray = (Supplier[]) ois.readObject();
-            ArrayList<Supplier> supplierList = new ArrayList<>();
-            for (Supplier s : supplierArray) {
-                supplierList.add(s);
-            }
-            return supplierList;
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
+        persistence.awaitPending(SUPPLIERS_FILE.getName());
+        return loadList(SUPPLIERS_FILE, ModelCodec.KIND_SUPPLIERS, Supplier.class);
+    }
+
+
+    // the engine switches to the new rules at once; the checkouts price with them from now on
+    public static void savePromotions(List<Promotion> promotions) {
+        persistence.awaitPending(PROMOTIONS_FILE.getName());
+        try {
+            ModelCodec.writeListFile(PROMOTIONS_FILE, ModelCodec.KIND_PROMOTIONS, new ArrayList<>(promotions));
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to save promotions: " + e.getMessage(), e);
         }
+        PromotionEngine.get().setPromotions(promotions);
+    }
+
+    public static ArrayList<Promotion> loadPromotions() {
+        persistence.awaitPending(PROMOTIONS_FILE.getName());
+        return loadList(PROMOTIONS_FILE, ModelCodec.KIND_PROMOTIONS, Promotion.class);
     }
 
 
     public static void saveAdmin(Administrator admin) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("admin.dat"))) {
-            oos.writeObject(admin);
+        try {
+            ModelCodec.writeFile(ADMIN_FILE, ModelCodec.KIND_ADMIN, w -> w.writeObject(admin));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -143,23 +696,74 @@ public class DataStorage {
 
 
     public static Administrator loadAdmin() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("admin.dat"))) {
-            return (Administrator) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            // Auto-create admin if not found
-            Administrator admin = new Administrator(
-                    1,
-                    "Nensi",
-                    "Der",
-                    LocalDate.of(2005, 10, 17),
-                    "0691234567",
-                    "nensi.der@example.com",
-                    1200.00
-            );
-            saveAdmin(admin);
-            return admin;
-        }
-    }
-
-
-}
\ No newline at end of file
+        if (ADMIN_FILE.exists()) {
+            try {
+                if (ModelCodec.isLegacyFile(ADMIN_FILE)) {
+                    synchronized (ModelCodec.lockFor(ADMIN_FILE)) {
+                        if (ModelCodec.isLegacyFile(ADMIN_FILE)) {
+                            Administrator admin;
+                            try (InputStream in = new BufferedInputStream(new FileInputStream(ADMIN_FILE))) {
+                                admin = (Administrator) ModelCodec.readLegacy(in);
+                            }
+                            ModelCodec.backupLegacy(ADMIN_FILE);
+                            admin.managerIds = new ArrayList<>();
+                            for (Manager m : admin.getManagers()) admin.managerIds.add(m.getEmployeeId());
+                            linkAdmin(admin);
+                            saveAdmin(admin);
+                            return admin;
+                        }
+                    }
+                }
+                Administrator admin = ModelCodec.readFile(ADMIN_FILE, ModelCodec.KIND_ADMIN,
+                        r -> r.readObject(Administrator.class));
+                linkAdmin(admin);
+                return admin;
+            } catch (IOException | ClassCastException e) {
+                // never overwrite an unreadable admin.dat with the default account
+                e.printStackTrace();
+                throw new RuntimeException("Failed to load admin.dat: " + e.getMessage(), e);
+            }
+        }
+
+        // Auto-create admin if not found
+        Administrator admin = new Administrator(
+                1,
+                "Nensi",
+                "Der",
+                LocalDate.of(2005, 10, 17),
+                "0691234567",
+                "nensi.der@example.com",
+                1200.00
+        );
+        saveAdmin(admin);
+        return admin;
+    }
+
+    // admin.dat keeps manager ids; the managers themselves come from managers.dat
+    private static void linkAdmin(Administrator admin) {
+        admin.getManagers().clear();
+        if (admin.managerIds == null || admin.managerIds.isEmpty()) return;
+
+        Map<Integer, Manager> byId = new HashMap<>();
+        for (Manager m : loadManagers()) byId.put(m.getEmployeeId(), m);
+        for (int id : admin.managerIds) {
+            Manager m = byId.get(id);
+            if (m != null) admin.getManagers().add(m);
+        }
+    }
+
+    // a missing file is an empty list; an unreadable one is reported instead of silently
+    // coming back empty (and then being overwritten by the next save)
+    private static <T> ArrayList<T> loadList(File file, int kind, Class<T> type) {
+        try {
+            ArrayList<T> list = ModelCodec.readListFile(file, kind, type);
+            list.removeIf(x -> x == null);
+            return list;
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Failed to load " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+
+}
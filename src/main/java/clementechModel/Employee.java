@@ -28,6 +28,12 @@ public class Employee implements Serializable{
 
     protected Set<Permission> permissions;
 
+    // used by ModelCodec when rebuilding a stored employee (no id registration)
+    protected Employee()
+    {
+        this.permissions = new HashSet<>();
+    }
+
     protected Employee(int employeeId, String firstName, String lastName, LocalDate dateOfBirth, String phone,
                        String email, double salary)
     {
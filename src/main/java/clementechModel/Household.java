@@ -8,6 +8,9 @@ public class Household extends Item implements Serializable{
     private int powerWatts;
     private String energyRating;
 
+    Household() {
+    }
+
     public Household(String itemId, String name, String brand, double purchasePrice, double sellingPrice,
                      LocalDate purchaseDate, int quantity ,int powerWatts, String energyRating,Inventory inventory)
     {
@@ -21,7 +21,7 @@ public class Inventory implements Serializable{
     public void addItemtoInventory(Item itemToAdd) {
 
         if (itemsInInventory.contains(itemToAdd)) {
-            itemToAdd.setStockQuantity(itemToAdd.getStockQuantity()+1);
+            itemToAdd.addStock(1);
             itemToAdd.setDateBought(LocalDate.now());
         } else {
             itemsInInventory.add(itemToAdd);
@@ -6,6 +6,11 @@ import java.time.LocalDate;
 public abstract class Item implements Serializable{
 
     private static final long serialVersionUID = 1L;
+
+    // stock and sold change on the checkout thread (DataStorage.commitBill) while the screens
+    // read them: every change is made under this lock, the fields are volatile for the readers
+    static final Object STOCK_LOCK = new Object();
+
     protected String itemId;
     protected String name;
     protected String brand;
@@ -19,12 +24,17 @@ public abstract class Item implements Serializable{
     protected LocalDate dateSold;
     protected LocalDate dateBought;
     protected double discountPercentage = 0;
-    protected int stockQuatity;
+    protected volatile int stockQuatity;
     protected transient Inventory inventory;
-    protected int numberSold = 0;
+    protected volatile int numberSold = 0;
     protected int thresholdNrForWarning = 3;
 
 
+    // used by ModelCodec when rebuilding a stored item
+    protected Item()
+    {
+    }
+
     protected Item(String itemId, String name, String brand, double purchasePrice, double sellingPrice,
                    LocalDate purchaseDate, int stockQuantity)
     {
@@ -47,7 +57,9 @@ public abstract class Item implements Serializable{
     }
     public void setNumberSold(int quantity)
     {
-        this.numberSold += quantity;
+        synchronized (STOCK_LOCK) {
+            this.numberSold += quantity;
+        }
     }
     public void setItemId(String itemId)
     {
@@ -137,7 +149,16 @@ public abstract class Item implements Serializable{
     }
     public void setStockQuantity(int quantity)
     {
-        this.stockQuatity = quantity;
+        synchronized (STOCK_LOCK) {
+            this.stockQuatity = quantity;
+        }
+    }
+    // restocking: a sale committed at the same time is not lost
+    public void addStock(int quantity)
+    {
+        synchronized (STOCK_LOCK) {
+            this.stockQuatity += quantity;
+        }
     }
     public void setDiscountPercentage(double discount)
     {
@@ -168,6 +189,9 @@ public abstract class Item implements Serializable{
     public static class PersistedItem extends Item {
         private static final long serialVersionUID = 1L;
 
+        PersistedItem() {
+        }
+
         public PersistedItem(String itemId, String name, String brand,
                              double purchasePrice, double sellingPrice,
                              LocalDate purchaseDate, int stockQuantity,
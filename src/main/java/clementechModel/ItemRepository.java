@@ -0,0 +1,235 @@
+package clementechModel;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// one process-wide copy of the catalog shared by all controllers.
+// items.dat is read once; later reads only compare a stamp (slot file version + items.dat
+// mtime/length) and reload when another process changed the files.
+// changes made here or detected on disk are published to the listeners.
+public class ItemRepository {
+
+    public enum ChangeType { RELOADED, ADDED, UPDATED, REMOVED }
+
+    public interface Listener {
+        void itemsChanged(ChangeType type, List<Item> changed);
+    }
+
+    private static final ItemRepository INSTANCE = new ItemRepository();
+
+    public static ItemRepository get() {
+        return INSTANCE;
+    }
+
+    private final ArrayList<Item> items = new ArrayList<>();
+    private final Map<String, Item> byId = new HashMap<>();
+    // built on the first search, dropped on a reload, updated by add/remove
+    // (saveNumbers never changes id, name or brand)
+    private ItemSearchIndex searchIndex;
+    // stamp of the files as this repository last read or wrote them, null until the first load
+    private volatile ItemStore.Stamp stamp;
+
+    // writes waiting for the persistence thread: a full list (add/remove) and/or changed numbers
+    private static final String ITEMS_KEY = "items";
+    private final Object pendingLock = new Object();
+    private ArrayList<Item> pendingFull;
+    private final Map<String, Item> pendingNumbers = new LinkedHashMap<>();
+    private boolean writing = false;
+
+    // held weakly: a screen that is thrown away does not stay registered
+    private final List<WeakReference<Listener>> listeners = new CopyOnWriteArrayList<>();
+
+    private ItemRepository() {
+    }
+
+    // keep a reference to the listener for as long as it should be called
+    public void addListener(Listener l) {
+        listeners.add(new WeakReference<>(Objects.requireNonNull(l, "listener")));
+    }
+
+    public void removeListener(Listener l) {
+        listeners.removeIf(ref -> ref.get() == null || ref.get() == l);
+    }
+
+    // snapshot of the current items (same objects, own list)
+    public ArrayList<Item> getItems() {
+        checkForChanges();
+        synchronized (this) {
+            return new ArrayList<>(items);
+        }
+    }
+
+    public Item findById(String itemId) {
+        checkForChanges();
+        synchronized (this) {
+            return byId.get(key(itemId));
+        }
+    }
+
+    // lookup in the loaded catalog without checking the files; for hot paths that
+    // already called checkForChanges (or getItems / search) for this action
+    public Item findLoaded(String itemId) {
+        synchronized (this) {
+            return byId.get(key(itemId));
+        }
+    }
+
+    // items whose id, name or brand contains the query (case-insensitive), in catalog order
+    public List<Item> search(String query) {
+        checkForChanges();
+        synchronized (this) {
+            if (searchIndex == null) searchIndex = new ItemSearchIndex(items);
+            return searchIndex.search(query);
+        }
+    }
+
+    // reloads only if the files were changed outside this repository; returns true if it did
+    public boolean checkForChanges() {
+        List<Item> reloaded;
+        // our own unsaved changes would be lost by a reload; check again once they are written
+        if (hasPendingWrites()) return false;
+
+        synchronized (this) {
+            ItemStore.Stamp current = DataStorage.getItemsStamp();
+            if (stamp != null && stamp.equals(current)) return false;
+
+            boolean firstLoad = stamp == null;
+            replaceAll(DataStorage.loadItems());
+            stamp = DataStorage.getItemsStamp();
+            if (firstLoad) return true;
+            reloaded = new ArrayList<>(items);
+        }
+        fire(ChangeType.RELOADED, reloaded);
+        return true;
+    }
+
+    // stock / sold / price / discount / threshold of existing items changed.
+    // listeners are told at once; the write happens on the persistence thread
+    public CompletableFuture<Void> saveNumbers(Collection<Item> changed) {
+        List<Item> list = new ArrayList<>(changed);
+        list.removeIf(Objects::isNull);
+        synchronized (pendingLock) {
+            for (Item it : list) pendingNumbers.put(key(it.getItemId()), it);
+        }
+        CompletableFuture<Void> done = PersistenceExecutor.get().submit(ITEMS_KEY, this::writePending);
+        fire(ChangeType.UPDATED, list);
+        return done;
+    }
+
+    public void add(Item item) {
+        Objects.requireNonNull(item, "item");
+        checkForChanges();
+        synchronized (this) {
+            if (byId.containsKey(key(item.getItemId()))) {
+                throw new IllegalArgumentException("An item with ID " + item.getItemId() + " already exists.");
+            }
+            items.add(item);
+            byId.put(key(item.getItemId()), item);
+            if (searchIndex != null) searchIndex.add(item);
+            queueFullSave();
+        }
+        fire(ChangeType.ADDED, List.of(item));
+    }
+
+    public void remove(Item item) {
+        if (item == null) return;
+        synchronized (this) {
+            if (!items.remove(item)) return;
+            byId.remove(key(item.getItemId()));
+            if (searchIndex != null) searchIndex.remove(item);
+            queueFullSave();
+        }
+        fire(ChangeType.REMOVED, List.of(item));
+    }
+
+    // blocks until the queued item writes are on disk
+    public void flush() {
+        PersistenceExecutor.get().awaitPending(ITEMS_KEY);
+    }
+
+    // called with the repository lock held
+    private void queueFullSave() {
+        synchronized (pendingLock) {
+            pendingFull = new ArrayList<>(items);
+        }
+        PersistenceExecutor.get().submit(ITEMS_KEY, this::writePending);
+    }
+
+    // runs on the persistence thread; never takes the repository lock
+    private void writePending() {
+        ArrayList<Item> full;
+        List<Item> numbers;
+        synchronized (pendingLock) {
+            full = pendingFull;
+            pendingFull = null;
+            numbers = new ArrayList<>(pendingNumbers.values());
+            pendingNumbers.clear();
+            writing = true;
+        }
+
+        boolean ok = false;
+        try {
+            // a full save writes every slot as well
+            if (full != null) DataStorage.saveItems(full);
+            else if (!numbers.isEmpty()) DataStorage.saveItemNumbers(numbers);
+            stamp = DataStorage.getItemsStamp();
+            ok = true;
+        } finally {
+            synchronized (pendingLock) {
+                writing = false;
+                if (!ok) {
+                    // keep them for the next save; newer entries win
+                    if (pendingFull == null) pendingFull = full;
+                    for (Item it : numbers) pendingNumbers.putIfAbsent(key(it.getItemId()), it);
+                }
+            }
+        }
+    }
+
+    // true while numbers or a full list are queued or being written
+    boolean hasPendingWrites() {
+        synchronized (pendingLock) {
+            return writing || pendingFull != null || !pendingNumbers.isEmpty();
+        }
+    }
+
+    private void replaceAll(List<Item> fresh) {
+        items.clear();
+        byId.clear();
+        searchIndex = null;
+        for (Item it : fresh) {
+            if (it == null) continue;
+            items.add(it);
+            byId.putIfAbsent(key(it.getItemId()), it);
+        }
+    }
+
+    // listeners run on the thread that made or noticed the change
+    private void fire(ChangeType type, List<Item> changed) {
+        List<Item> view = List.copyOf(changed);
+        for (WeakReference<Listener> ref : listeners) {
+            Listener l = ref.get();
+            if (l == null) {
+                listeners.remove(ref);
+                continue;
+            }
+            try {
+                l.itemsChanged(type, view);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static String key(String itemId) {
+        return itemId == null ? "" : itemId.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,180 @@
+package clementechModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// substring index over item id, name and brand.
+// every indexed item gets an ordinal; each trigram (3 consecutive lower-case chars) maps to the
+// ascending ordinals of the items whose text contains it. a query intersects the postings of its
+// trigrams, smallest list first, and checks the few candidates left with contains().
+// queries shorter than a trigram scan the lower-cased texts.
+// not thread-safe: ItemRepository calls it with its lock held
+class ItemSearchIndex {
+
+    // fields are joined with a char no query contains, so a match never spans two fields
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private static final class Postings {
+        int[] ords = new int[4];
+        int size;
+
+        void add(int ord) {
+            // ordinals only grow, so appending keeps the list sorted
+            if (size > 0 && ords[size - 1] == ord) return;
+            if (size == ords.length) ords = Arrays.copyOf(ords, size * 2);
+            ords[size++] = ord;
+        }
+    }
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+
+    // by ordinal; a removed item leaves a null until the next compaction
+    private Item[] items = new Item[64];
+    private String[] texts = new String[64];
+    private int next = 0;
+    private int live = 0;
+
+    ItemSearchIndex(List<Item> all) {
+        for (Item it : all) add(it);
+    }
+
+    void add(Item item) {
+        if (item == null) return;
+        String id = key(item.getItemId());
+        if (ordinalById.containsKey(id)) return;
+
+        if (next == items.length) {
+            items = Arrays.copyOf(items, next * 2);
+            texts = Arrays.copyOf(texts, next * 2);
+        }
+        int ord = next++;
+        String text = textOf(item);
+        items[ord] = item;
+        texts[ord] = text;
+        ordinalById.put(id, ord);
+        live++;
+
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long gram = trigram(text, i);
+            if (gram < 0) continue;
+            postings.computeIfAbsent(gram, g -> new Postings()).add(ord);
+        }
+    }
+
+    void remove(Item item) {
+        if (item == null) return;
+        Integer ord = ordinalById.remove(key(item.getItemId()));
+        if (ord == null) return;
+
+        items[ord] = null;
+        texts[ord] = null;
+        live--;
+
+        // stale ordinals only cost a skipped candidate; drop them once they are the majority
+        if (next > 1024 && live < next / 2) compact();
+    }
+
+    // items in index order whose id, name or brand contains the query (case-insensitive)
+    List<Item> search(String query) {
+        String q = query == null ? "" : query.trim().toLowerCase();
+        List<Item> out = new ArrayList<>();
+
+        if (q.isEmpty()) {
+            for (int ord = 0; ord < next; ord++) {
+                if (items[ord] != null) out.add(items[ord]);
+            }
+            return out;
+        }
+
+        if (q.length() < 3) {
+            for (int ord = 0; ord < next; ord++) {
+                if (texts[ord] != null && texts[ord].contains(q)) out.add(items[ord]);
+            }
+            return out;
+        }
+
+        int[] candidates = candidates(q);
+        for (int ord : candidates) {
+            if (ord < 0) break;
+            if (texts[ord] != null && texts[ord].contains(q)) out.add(items[ord]);
+        }
+        return out;
+    }
+
+    // ordinals holding every trigram of q, ascending; the unused tail is filled with -1
+    private int[] candidates(String q) {
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            long gram = trigram(q, i);
+            if (gram < 0) return new int[0];
+            Postings p = postings.get(gram);
+            if (p == null) return new int[0];
+            if (!lists.contains(p)) lists.add(p);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        Postings smallest = lists.get(0);
+        int[] result = Arrays.copyOf(smallest.ords, smallest.size);
+        int count = result.length;
+
+        for (int l = 1; l < lists.size() && count > 0; l++) {
+            Postings other = lists.get(l);
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count; i++) {
+                // the candidate list is much shorter than the others: binary search in the rest
+                int at = Arrays.binarySearch(other.ords, from, other.size, result[i]);
+                if (at >= 0) {
+                    result[kept++] = result[i];
+                    from = at + 1;
+                } else {
+                    from = -at - 1;
+                }
+            }
+            count = kept;
+        }
+
+        if (count < result.length) Arrays.fill(result, count, result.length, -1);
+        return result;
+    }
+
+    private void compact() {
+        List<Item> keep = new ArrayList<>(live);
+        for (int ord = 0; ord < next; ord++) {
+            if (items[ord] != null) keep.add(items[ord]);
+        }
+
+        postings.clear();
+        ordinalById.clear();
+        items = new Item[Math.max(64, keep.size() * 2)];
+        texts = new String[items.length];
+        next = 0;
+        live = 0;
+        for (Item it : keep) add(it);
+    }
+
+    private static String textOf(Item item) {
+        return (safe(item.getItemId()) + FIELD_SEPARATOR
+                + safe(item.getItemName()) + FIELD_SEPARATOR
+                + safe(item.getItemBrand())).toLowerCase();
+    }
+
+    // three chars packed into one long; -1 if the window crosses a field boundary
+    private static long trigram(String s, int i) {
+        char a = s.charAt(i), b = s.charAt(i + 1), c = s.charAt(i + 2);
+        if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) return -1;
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static String safe(String s) {
+        return s == null ? "" : s.trim();
+    }
+
+    private static String key(String itemId) {
+        return itemId == null ? "" : itemId.trim().toLowerCase();
+    }
+}
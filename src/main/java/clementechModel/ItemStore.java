@@ -0,0 +1,283 @@
+package clementechModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// items are split in two files:
+//  - the side file (items.dat) keeps the full Item objects and is rewritten only when
+//    an item is added, removed or its descriptive attributes change
+//  - the slot file (items.slots) is memory mapped and holds one fixed-size slot per item
+//    with the numbers that change on every sale, so a sale only touches a few bytes
+// every slot remembers the last commit log transaction it contains, so replaying the
+// log after a crash applies each stock delta exactly once
+public class ItemStore {
+
+    private static final int MAGIC = 0x434C4D32;     // "CLM2"
+    private static final int OLD_MAGIC = 0x434C4D53; // "CLMS", 16 byte header / 32 byte slots
+    private static final int OLD_HEADER_BYTES = 16;
+    private static final int OLD_SLOT_BYTES = 32;
+
+    // 64 byte header and slots: a slot never straddles a page
+    private static final int HEADER_BYTES = 64;   // magic, slotCount, version (long), reserved
+    private static final int OFF_SLOT_COUNT = 4;
+    private static final int OFF_VERSION = 8;
+
+    // slot layout
+    private static final int SLOT_BYTES = 64;
+    private static final int OFF_ID_HASH = 0;
+    private static final int OFF_STOCK = 4;
+    private static final int OFF_SOLD = 8;
+    private static final int OFF_THRESHOLD = 12;
+    private static final int OFF_PRICE = 16;
+    private static final int OFF_DISCOUNT = 24;
+    private static final int OFF_TX = 32;
+
+    private final File sideFile;
+    private final File slotFile;
+
+    private RandomAccessFile slotRaf;
+    private MappedByteBuffer slots;
+    private int slotCount;
+
+    // lower-cased itemId -> slot index
+    private final Map<String, Integer> slotByItemId = new HashMap<>();
+
+    public ItemStore(String sideFileName, String slotFileName) {
+        this.sideFile = new File(sideFileName);
+        this.slotFile = new File(slotFileName);
+    }
+
+    public synchronized ArrayList<Item> load() throws IOException {
+        ArrayList<Item> items = readSideFile();
+        migrateOldLayout(items);
+
+        if (!slotsMatch(items)) {
+            // first run, or the side file was replaced: seed the slots from it
+            writeSlots(items, 0);
+            return items;
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            readSlot(i, items.get(i));
+        }
+        indexItems(items);
+        return items;
+    }
+
+    // full save: item added/removed or descriptive fields changed.
+    // tx = last commit log transaction already reflected in the items' numbers
+    public synchronized void saveAll(List<Item> items, long tx) throws IOException {
+        ArrayList<Item> clean = new ArrayList<>();
+        for (Item it : items) {
+            if (it != null) clean.add(it);
+        }
+        writeSideFile(clean);
+        writeSlots(clean, tx);
+    }
+
+    // in-place update of stock, numberSold, sellingPrice, discount and threshold
+    public synchronized void saveNumbers(Collection<Item> changed, long tx) throws IOException {
+        ensureMapped();
+        for (Item it : changed) {
+            if (it == null) continue;
+            int slot = slotOf(it.getItemId());
+            // never move a slot's transaction backwards
+            writeSlot(slot, it, Math.max(tx, slots.getLong(slotOffset(slot) + OFF_TX)));
+        }
+        bumpVersion();
+    }
+
+    // commit log replay: applies the deltas of transaction tx to slots that do not have it yet.
+    // returns how many slots changed
+    public synchronized int applyDeltas(long tx, Map<String, int[]> stockAndSoldByItemId) throws IOException {
+        if (stockAndSoldByItemId.isEmpty()) return 0;
+        ensureMapped();
+
+        int changed = 0;
+        for (Map.Entry<String, int[]> e : stockAndSoldByItemId.entrySet()) {
+            Integer slot = slotByItemId.get(key(e.getKey()));
+            if (slot == null) continue; // item deleted since
+
+            int off = slotOffset(slot);
+            if (slots.getLong(off + OFF_TX) >= tx) continue;
+
+            slots.putInt(off + OFF_STOCK, slots.getInt(off + OFF_STOCK) + e.getValue()[0]);
+            slots.putInt(off + OFF_SOLD, slots.getInt(off + OFF_SOLD) + e.getValue()[1]);
+            slots.putLong(off + OFF_TX, tx);
+            changed++;
+        }
+        if (changed > 0) bumpVersion();
+        return changed;
+    }
+
+    // makes the slot writes durable (checkpoint)
+    public synchronized void force() {
+        if (slots != null) slots.force();
+    }
+
+    // bumped on every save; the slot file is shared through the mapping, so a save made by
+    // another process is visible here without reading items.dat
+    public synchronized Stamp stamp() throws IOException {
+        long version = 0;
+        if (slotFile.exists() && slotFile.length() >= HEADER_BYTES) {
+            ensureMapped();
+            version = slots.getLong(OFF_VERSION);
+        }
+        return new Stamp(version, sideFile.lastModified(), sideFile.length());
+    }
+
+    public record Stamp(long version, long sideModified, long sideLength) {}
+
+    public synchronized boolean contains(String itemId) {
+        return slotByItemId.containsKey(key(itemId));
+    }
+
+    //  side file
+    private ArrayList<Item> readSideFile() throws IOException {
+        ArrayList<Item> itemList = ModelCodec.readListFile(sideFile, ModelCodec.KIND_ITEMS, Item.class);
+        itemList.removeIf(i -> i == null);
+        return itemList;
+    }
+
+    private void writeSideFile(List<Item> items) throws IOException {
+        ModelCodec.writeListFile(sideFile, ModelCodec.KIND_ITEMS, items);
+    }
+
+    //  slot file
+    private boolean slotsMatch(List<Item> items) throws IOException {
+        if (!slotFile.exists() || slotFile.length() < HEADER_BYTES) return false;
+
+        ensureMapped();
+        slotCount = slots.getInt(OFF_SLOT_COUNT);
+        if (slots.getInt(0) != MAGIC || slotCount != items.size()) return false;
+        if (slots.capacity() < HEADER_BYTES + (long) slotCount * SLOT_BYTES) return false;
+
+        for (int i = 0; i < items.size(); i++) {
+            if (slots.getInt(slotOffset(i) + OFF_ID_HASH) != idHash(items.get(i))) return false;
+        }
+        return true;
+    }
+
+    // slot files from before the commit log: take their numbers, then rebuild in the new layout
+    private void migrateOldLayout(List<Item> items) throws IOException {
+        if (!slotFile.exists() || slotFile.length() < OLD_HEADER_BYTES) return;
+
+        try (RandomAccessFile raf = new RandomAccessFile(slotFile, "r")) {
+            if (raf.readInt() != OLD_MAGIC) return;
+            int count = raf.readInt();
+            if (count == items.size() && raf.length() >= OLD_HEADER_BYTES + (long) count * OLD_SLOT_BYTES) {
+                for (int i = 0; i < count; i++) {
+                    Item it = items.get(i);
+                    raf.seek(OLD_HEADER_BYTES + (long) i * OLD_SLOT_BYTES);
+                    if (raf.readInt() != idHash(it)) continue;
+                    it.stockQuatity = raf.readInt();
+                    it.numberSold = raf.readInt();
+                    it.thresholdNrForWarning = raf.readInt();
+                    it.sellingPrice = raf.readDouble();
+                    it.discountPercentage = raf.readDouble();
+                }
+            }
+        }
+
+        closeMapping();
+        if (!slotFile.delete()) throw new IOException("Could not replace " + slotFile.getName());
+        writeSlots(items, 0);
+    }
+
+    private void writeSlots(List<Item> items, long tx) throws IOException {
+        int needed = HEADER_BYTES + items.size() * SLOT_BYTES;
+
+        // the file only ever grows; a mapped file cannot be shrunk on every platform
+        if (slotRaf == null) slotRaf = new RandomAccessFile(slotFile, "rw");
+        if (slots == null || slots.capacity() < needed) {
+            long size = Math.max(needed, slotRaf.length());
+            slotRaf.setLength(size);
+            slots = slotRaf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        slots.putInt(0, MAGIC);
+        for (int i = 0; i < items.size(); i++) {
+            writeSlot(i, items.get(i), tx);
+        }
+        slotCount = items.size();
+        slots.putInt(OFF_SLOT_COUNT, slotCount);
+        bumpVersion();
+
+        indexItems(items);
+    }
+
+    private void ensureMapped() throws IOException {
+        // another process may have grown the file since it was mapped
+        if (slots != null && slotRaf.length() <= slots.capacity()) return;
+        if (!slotFile.exists()) throw new IllegalStateException("Items are not loaded yet.");
+
+        if (slotRaf == null) slotRaf = new RandomAccessFile(slotFile, "rw");
+        slots = slotRaf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, slotRaf.length());
+        slotCount = slots.getInt(OFF_SLOT_COUNT);
+    }
+
+    private void closeMapping() throws IOException {
+        slots = null;
+        if (slotRaf != null) slotRaf.close();
+        slotRaf = null;
+    }
+
+    private void bumpVersion() {
+        slots.putLong(OFF_VERSION, slots.getLong(OFF_VERSION) + 1);
+    }
+
+    private int slotOf(String itemId) {
+        Integer slot = slotByItemId.get(key(itemId));
+        if (slot == null) {
+            throw new IllegalStateException("Item " + itemId + " is not stored yet, save the full item list.");
+        }
+        return slot;
+    }
+
+    private void writeSlot(int index, Item it, long tx) {
+        int off = slotOffset(index);
+        slots.putInt(off + OFF_ID_HASH, idHash(it));
+        slots.putInt(off + OFF_STOCK, it.getStockQuantity());
+        slots.putInt(off + OFF_SOLD, it.getNumberSold());
+        slots.putInt(off + OFF_THRESHOLD, it.getThresholdNrForWarning());
+        slots.putDouble(off + OFF_PRICE, it.getSellingPrice());
+        slots.putDouble(off + OFF_DISCOUNT, it.getDiscountPercentage());
+        slots.putLong(off + OFF_TX, tx);
+    }
+
+    private void readSlot(int index, Item it) {
+        int off = slotOffset(index);
+        it.stockQuatity = slots.getInt(off + OFF_STOCK);
+        it.numberSold = slots.getInt(off + OFF_SOLD);
+        it.thresholdNrForWarning = slots.getInt(off + OFF_THRESHOLD);
+        it.sellingPrice = slots.getDouble(off + OFF_PRICE);
+        it.discountPercentage = slots.getDouble(off + OFF_DISCOUNT);
+    }
+
+    private void indexItems(List<Item> items) {
+        slotByItemId.clear();
+        for (int i = 0; i < items.size(); i++) {
+            slotByItemId.put(key(items.get(i).getItemId()), i);
+        }
+    }
+
+    private static int slotOffset(int index) {
+        return HEADER_BYTES + index * SLOT_BYTES;
+    }
+
+    private static int idHash(Item it) {
+        return it.hashCode();
+    }
+
+    private static String key(String itemId) {
+        return itemId == null ? "" : itemId.toLowerCase();
+    }
+}
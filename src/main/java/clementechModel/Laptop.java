@@ -16,6 +16,9 @@ public class Laptop extends Item implements Serializable{
     private String operatingSystem;
 
 
+    Laptop() {
+    }
+
     public Laptop(String itemId, String name, String brand, double purchasePrice, double sellingPrice,
                   LocalDate purchaseDate,int quantity, String model, String processor, int ramGB, int storageGB,
                   String storageType, double screenSize, boolean hasDedicatedGPU, String operatingSystem,
@@ -1,10 +1,13 @@
 package clementechModel;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class Manager extends Employee implements Serializable{
@@ -12,10 +15,23 @@ public class Manager extends Employee implements Serializable{
     private static final long serialVersionUID = 1L;
 
     private Set<Sector> sectors;
+    // filled from the cashiers' manager links when employees are loaded, not stored here
     private ArrayList<Cashier>cashiers;
     private Inventory inventory;
     private double totalSpendings = 0;
-    private ArrayList<Item>itemsPurchased;
+    // kept in purchases.dat, read on first use; null until then
+    ArrayList<Item>itemsPurchased;
+    transient boolean purchasesChanged = false;
+    // inventory item ids that are no longer in the catalog, kept so a save does not drop them
+    transient ArrayList<String> unresolvedItemIds = new ArrayList<>();
+
+    Manager()
+    {
+        this.sectors = new HashSet<>();
+        this.cashiers = new ArrayList<>();
+        this.itemsPurchased = new ArrayList<>();
+        this.inventory = new Inventory();
+    }
 
     public Manager(int employeeId, String firstName, String lastName, LocalDate dateOfBirth, String phone,
                    String email, double salary) {
@@ -36,6 +52,10 @@ public class Manager extends Employee implements Serializable{
     {
         return this.totalSpendings;
     }
+    void setTotalSpendings(double totalSpendings)
+    {
+        this.totalSpendings = totalSpendings;
+    }
 
     public void setDiscountPercentage(String name, double discount) {
 
@@ -48,21 +68,21 @@ public class Manager extends Employee implements Serializable{
         if (!permissions.contains(Permission.APPLY_DISCOUNT))
             throw new SecurityException("You do not have permission to apply discount.");
 
-        ArrayList<Item> list = DataStorage.loadItems();
+        ArrayList<Item> list = ItemRepository.get().getItems();
 
-        boolean found = false;
+        ArrayList<Item> changed = new ArrayList<>();
         for (Item item : list) {
             if (item == null) continue;
             if (item.getItemName() != null && item.getItemName().equalsIgnoreCase(name)) {
                 item.setDiscountPercentage(discount);
-                found = true;
+                changed.add(item);
             }
         }
 
-        if (!found)
+        if (changed.isEmpty())
             throw new IllegalArgumentException("Item not found: " + name);
 
-        DataStorage.saveItems(list);   //THIS makes cashier see it
+        ItemRepository.get().saveNumbers(changed);   //THIS makes cashier see it
     }
 
     public Set<Sector> getSectors()
@@ -87,6 +107,7 @@ public class Manager extends Employee implements Serializable{
             throw new IllegalArgumentException("Cashier already exists.");
 
         cashiers.add(c);
+        c.setManager(this);
     }
     public void restockItems(Item item, int quantity)
     {
@@ -100,7 +121,8 @@ public class Manager extends Employee implements Serializable{
         }
         inventory.addItemtoInventory(item);
         this.totalSpendings += item.getSellingPrice()*quantity;
-        this.itemsPurchased.add(item);
+        getItemsPurchased().add(item);
+        purchasesChanged = true;
     }
 
     public void addNewItemType(Item item)
@@ -161,16 +183,14 @@ public class Manager extends Employee implements Serializable{
             throw new SecurityException("You cannot view this field.");
         }
         StringBuilder sb = new StringBuilder();
-        LocalDate oneMonthAgo = LocalDate.now().minusMonths(1);
+        LocalDate today = LocalDate.now();
+        LocalDate oneMonthAgo = today.minusMonths(1);
+        // one read of the month's day segments, shared by every cashier
+        ArrayList<Bill> lastMonth = DataStorage.loadBillsBetween(oneMonthAgo.plusDays(1), today);
         for(int i = 0; i < cashiers.size();i++)
         {
-            for(int j = 0; j<cashiers.get(i).getBills().size();j++)
-            {
-                if(cashiers.get(i).getBills().get(j).getDateBillIsGettingCut().isAfter(oneMonthAgo))
-                {
-                    sb.append(cashiers.get(i).viewTodaysBills());
-                }
-            }
+            int count = countCreatedBy(lastMonth, cashiers.get(i));
+            if (count > 0) sb.append(cashiers.get(i).viewTodaysBills().repeat(count));
         }
         return sb.toString();
     }
@@ -181,15 +201,24 @@ public class Manager extends Employee implements Serializable{
             throw new SecurityException("You cannot view this field.");
         }
         StringBuilder sb = new StringBuilder();
+        // the bill store is read once, not once per cashier and bill
+        ArrayList<Bill> all = DataStorage.loadBills();
         for(int i = 0; i < cashiers.size();i++)
         {
-            for(int j = 0; j<cashiers.get(i).getBills().size();j++)
-            {
-                sb.append(cashiers.get(i).viewTodaysBills());
-            }
+            int count = countCreatedBy(all, cashiers.get(i));
+            if (count > 0) sb.append(cashiers.get(i).viewTodaysBills().repeat(count));
         }
         return sb.toString();
     }
+
+    private static int countCreatedBy(List<Bill> bills, Cashier cashier)
+    {
+        int count = 0;
+        for (Bill b : bills) {
+            if (cashier.getUsername().equalsIgnoreCase(b.getCreatedByUsername())) count++;
+        }
+        return count;
+    }
     public String itemsSoldLastDay()
     {
         if(!permissions.contains(Permission.VIEW_STATS))
@@ -269,6 +298,7 @@ public class Manager extends Employee implements Serializable{
     }
     public ArrayList<Item> getItemsPurchased()
     {
+        if (this.itemsPurchased == null) this.itemsPurchased = DataStorage.loadPurchases(getEmployeeId());
         return this.itemsPurchased;
     }
     public void setNewSupplier(Supplier supplier, Item item)
@@ -283,4 +313,11 @@ public class Manager extends Employee implements Serializable{
     {
         return inventory;
     }
+
+    // managers.dat from before the codec: purchases were embedded and still need to move out
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        unresolvedItemIds = new ArrayList<>();
+        purchasesChanged = itemsPurchased != null && !itemsPurchased.isEmpty();
+    }
 }
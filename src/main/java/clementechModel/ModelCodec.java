@@ -0,0 +1,929 @@
+package clementechModel;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// hand-written binary format for the model classes, replacing default Java serialization.
+//
+// file layout: "CLEM" magic, kind byte, schema version (varint), then the body.
+// inside a body ints are varints, strings are interned (each distinct string is written once,
+// later uses are a table index) and objects are written once and then referenced by index,
+// so shared items/employees and the manager <-> cashier cycle survive a round trip.
+public final class ModelCodec {
+
+    // 2: bills store BillLine records instead of one Item per unit
+    // 3: employees link to each other and to items by id; bills and purchases are not embedded
+    // 4: bills record the promotions applied to them; promotion rules
+    // 5: bill lines record the item's sector at the time of sale
+    public static final int SCHEMA_VERSION = 5;
+
+    // what a file contains, checked on load so files cannot be mixed up
+    public static final int KIND_ITEMS = 1;
+    public static final int KIND_BILLS = 2;
+    public static final int KIND_MANAGERS = 3;
+    public static final int KIND_CASHIERS = 4;
+    public static final int KIND_SUPPLIERS = 5;
+    public static final int KIND_ADMIN = 6;
+    public static final int KIND_BILL_RECORD = 7;
+    public static final int KIND_BILL_MANIFEST = 8;
+    public static final int KIND_COMMIT_RECORD = 9;
+    public static final int KIND_PURCHASES = 10;
+    public static final int KIND_PROMOTIONS = 11;
+    public static final int KIND_SALES_ROLLUP = 12;
+    public static final int KIND_SALES_ROLLUP_DELTA = 13;
+
+    private static final byte[] MAGIC = {'C', 'L', 'E', 'M'};
+    private static final int JAVA_SERIAL_MAGIC = 0xACED;
+
+    // object tags
+    private static final int TAG_PERSISTED_ITEM = 1;
+    private static final int TAG_PHONE = 2;
+    private static final int TAG_TV = 3;
+    private static final int TAG_LAPTOP = 4;
+    private static final int TAG_TABLET = 5;
+    private static final int TAG_ACCESSORIES = 6;
+    private static final int TAG_HOUSEHOLD = 7;
+    private static final int TAG_SUPPLIER = 10;
+    private static final int TAG_MANAGER = 20;
+    private static final int TAG_CASHIER = 21;
+    private static final int TAG_ADMIN = 22;
+    private static final int TAG_BILL = 30;
+    private static final int TAG_PROMOTION = 40;
+
+    private ModelCodec() {}
+
+    //  files
+
+    public interface BodyWriter {
+        void write(Writer w) throws IOException;
+    }
+
+    public interface BodyReader<T> {
+        T read(Reader r) throws IOException;
+    }
+
+    // writes to a temp file first so a failed save never leaves a half-written file behind.
+    // each write has its own temp file and writes of the same file take turns
+    public static void writeFile(File file, int kind, BodyWriter body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 12);
+        Writer w = new Writer(bytes);
+        w.writeHeader(kind);
+        body.write(w);
+        w.flush();
+
+        synchronized (lockFor(file)) {
+            File dir = file.getAbsoluteFile().getParentFile();
+            File tmp = Files.createTempFile(dir.toPath(), file.getName() + ".", ".tmp").toFile();
+            try {
+                try (OutputStream out = new FileOutputStream(tmp)) {
+                    bytes.writeTo(out);
+                }
+                replace(tmp, file);
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+            remember(file, bytes.toByteArray());
+        }
+    }
+
+    // one lock per data file (by canonical path): the startup stages load the same files at once
+    private static final Map<String, Object> fileLocks = new ConcurrentHashMap<>();
+
+    static Object lockFor(File file) throws IOException {
+        return fileLocks.computeIfAbsent(file.getCanonicalPath(), k -> new Object());
+    }
+
+    public static <T> T readFile(File file, int kind, BodyReader<T> body) throws IOException {
+        byte[] cached = fileBytes(file);
+        try (InputStream in = cached != null
+                ? new ByteArrayInputStream(cached)
+                : new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            Reader r = new Reader(in);
+            r.readHeader(kind, file.getName());
+            return body.read(r);
+        }
+    }
+
+    //  file cache
+    // the bytes of small data files are kept after the first read or write, so loading the same
+    // list again (every screen does) decodes from memory. an entry is used only while the
+    // file's length and modification time still match, so changes from other processes are seen
+    private static final long CACHE_MAX_FILE_BYTES = 4L << 20;
+    private static final Map<String, CachedFile> fileCache = new ConcurrentHashMap<>();
+
+    private record CachedFile(long modified, long length, byte[] bytes) {}
+
+    // null if the file is too big to keep
+    private static byte[] fileBytes(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        long modified = file.lastModified();
+        long length = file.length();
+
+        CachedFile c = fileCache.get(key);
+        if (c != null && c.modified() == modified && c.length() == length) return c.bytes();
+        if (length > CACHE_MAX_FILE_BYTES) return null;
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length == length) fileCache.put(key, new CachedFile(modified, length, bytes));
+        return bytes;
+    }
+
+    private static void remember(File file, byte[] bytes) {
+        String key = file.getAbsolutePath();
+        if (bytes.length > CACHE_MAX_FILE_BYTES || file.length() != bytes.length) {
+            fileCache.remove(key);
+            return;
+        }
+        fileCache.put(key, new CachedFile(file.lastModified(), bytes.length, bytes));
+    }
+
+    // loads a list file in either format; an old ObjectOutputStream file is migrated once:
+    // it is copied to <name>.bak and rewritten in the codec format
+    public static <T> ArrayList<T> readListFile(File file, int kind, Class<T> type) throws IOException {
+        if (!file.exists()) return new ArrayList<>();
+
+        if (isLegacyFile(file)) {
+            synchronized (lockFor(file)) {
+                // migrated by another thread while this one waited
+                if (isLegacyFile(file)) return migrateLegacyList(file, kind, type);
+            }
+        }
+
+        ArrayList<T> list = readFile(file, kind, r -> r.readObjectList(type));
+        return list == null ? new ArrayList<>() : list;
+    }
+
+    private static <T> ArrayList<T> migrateLegacyList(File file, int kind, Class<T> type) throws IOException {
+        Object legacy;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            legacy = readLegacy(in);
+        }
+        ArrayList<T> list = new ArrayList<>();
+        if (legacy instanceof Object[] arr) {
+            for (Object o : arr) {
+                if (type.isInstance(o)) list.add(type.cast(o));
+            }
+        }
+        backupLegacy(file);
+        writeListFile(file, kind, list);
+        return list;
+    }
+
+    public static void writeListFile(File file, int kind, List<?> list) throws IOException {
+        writeFile(file, kind, w -> w.writeObjectList(list));
+    }
+
+    public static void backupLegacy(File file) throws IOException {
+        File bak = new File(file.getPath() + ".bak");
+        try {
+            Files.copy(file.toPath(), bak.toPath());
+        } catch (FileAlreadyExistsException e) {
+            // the first backup is the original file: keep it
+        }
+    }
+
+    // true if the file was written by ObjectOutputStream (the pre-codec format)
+    public static boolean isLegacyFile(File file) throws IOException {
+        byte[] cached = fileBytes(file);
+        if (cached != null) return isLegacyPayload(cached);
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readUnsignedShort() == JAVA_SERIAL_MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    public static boolean isLegacyPayload(byte[] payload) {
+        return payload.length >= 2
+                && (payload[0] & 0xFF) == (JAVA_SERIAL_MAGIC >>> 8)
+                && (payload[1] & 0xFF) == (JAVA_SERIAL_MAGIC & 0xFF);
+    }
+
+    // reads an old ObjectOutputStream file, used once per file to migrate it
+    public static Object readLegacy(InputStream in) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(in)) {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class in legacy data: " + e.getMessage(), e);
+        }
+    }
+
+    //  single records (journal payloads)
+
+    public static byte[] encode(int kind, BodyWriter body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        Writer w = new Writer(bytes);
+        w.writeHeader(kind);
+        body.write(w);
+        w.flush();
+        return bytes.toByteArray();
+    }
+
+    public static <T> T decode(byte[] payload, int kind, BodyReader<T> body) throws IOException {
+        Reader r = new Reader(new ByteArrayInputStream(payload));
+        r.readHeader(kind, "record");
+        return body.read(r);
+    }
+
+    // atomic where the file system allows it, so readers see the old or the new file
+    static void replace(File tmp, File target) throws IOException {
+        try {
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //  writer
+
+    public static final class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Object, Integer> objects = new IdentityHashMap<>();
+
+        Writer(OutputStream out) {
+            this.out = new DataOutputStream(out);
+        }
+
+        void writeHeader(int kind) throws IOException {
+            out.write(MAGIC);
+            out.writeByte(kind);
+            writeVarInt(SCHEMA_VERSION);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        public void writeVarInt(int v) throws IOException {
+            while ((v & ~0x7F) != 0) {
+                out.writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte(v);
+        }
+
+        public void writeVarLong(long v) throws IOException {
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+        }
+
+        // zigzag keeps small negative numbers short
+        public void writeSignedInt(int v) throws IOException {
+            writeVarInt((v << 1) ^ (v >> 31));
+        }
+
+        public void writeSignedLong(long v) throws IOException {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        public void writeDouble(double v) throws IOException {
+            out.writeDouble(v);
+        }
+
+        public void writeBoolean(boolean v) throws IOException {
+            out.writeByte(v ? 1 : 0);
+        }
+
+        // 0 = null, 1 = new string follows, n >= 2 = table entry n - 2
+        public void writeString(String s) throws IOException {
+            if (s == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer idx = strings.get(s);
+            if (idx != null) {
+                writeVarInt(idx + 2);
+                return;
+            }
+            strings.put(s, strings.size());
+            writeVarInt(1);
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(b.length);
+            out.write(b);
+        }
+
+        // 0 = null, otherwise epochDay + 1 (zigzag)
+        public void writeDate(LocalDate d) throws IOException {
+            if (d == null) {
+                writeVarLong(0);
+                return;
+            }
+            long day = d.toEpochDay();
+            writeVarLong(((day << 1) ^ (day >> 63)) + 1);
+        }
+
+        public void writeEnum(Enum<?> e) throws IOException {
+            writeString(e == null ? null : e.name());
+        }
+
+        public void writeEnumSet(Set<? extends Enum<?>> set) throws IOException {
+            if (set == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(set.size() + 1);
+            for (Enum<?> e : set) writeEnum(e);
+        }
+
+        // count + 1, 0 meaning null
+        public void writeObjectList(Collection<?> list) throws IOException {
+            if (list == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(list.size() + 1);
+            for (Object o : list) writeObject(o);
+        }
+
+        // 0 = null, 1 = new object (tag + body follows), n >= 2 = back reference n - 2
+        public void writeObject(Object o) throws IOException {
+            if (o == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer idx = objects.get(o);
+            if (idx != null) {
+                writeVarInt(idx + 2);
+                return;
+            }
+            objects.put(o, objects.size());
+            writeVarInt(1);
+
+            if (o instanceof Item it) writeItem(it);
+            else if (o instanceof Supplier s) writeSupplier(s);
+            else if (o instanceof Manager m) writeManager(m);
+            else if (o instanceof Cashier c) writeCashier(c);
+            else if (o instanceof Administrator a) writeAdmin(a);
+            else if (o instanceof Bill b) writeBill(b);
+            else if (o instanceof Promotion p) writePromotion(p);
+            else throw new IOException("Cannot encode " + o.getClass().getName());
+        }
+
+        private void writeItem(Item it) throws IOException {
+            int tag;
+            if (it instanceof Phone) tag = TAG_PHONE;
+            else if (it instanceof TV) tag = TAG_TV;
+            else if (it instanceof Laptop) tag = TAG_LAPTOP;
+            else if (it instanceof Tablet) tag = TAG_TABLET;
+            else if (it instanceof Accessories) tag = TAG_ACCESSORIES;
+            else if (it instanceof Household) tag = TAG_HOUSEHOLD;
+            else tag = TAG_PERSISTED_ITEM;
+            writeVarInt(tag);
+
+            writeString(it.itemId);
+            writeString(it.name);
+            writeString(it.brand);
+            writeDouble(it.purchasePrice);
+            writeDouble(it.sellingPrice);
+            writeDate(it.purchaseDate);
+            writeObject(it.supplier);
+            writeEnum(it.sector);
+            writeDate(it.dateSold);
+            writeDate(it.dateBought);
+            writeDouble(it.discountPercentage);
+            writeSignedInt(it.stockQuatity);
+            writeSignedInt(it.numberSold);
+            writeSignedInt(it.thresholdNrForWarning);
+
+            switch (tag) {
+                case TAG_PHONE -> {
+                    Phone p = (Phone) it;
+                    writeString(p.getPhoneModel());
+                    writeSignedInt(p.getStorageGB());
+                    writeBoolean(p.getIs5G());
+                }
+                case TAG_TV -> {
+                    TV t = (TV) it;
+                    writeSignedInt(t.getScreenSizaInches());
+                    writeBoolean(t.getIsSmartTV());
+                    writeString(t.getResolution());
+                }
+                case TAG_LAPTOP -> {
+                    Laptop l = (Laptop) it;
+                    writeString(l.getLaptopModel());
+                    writeString(l.getProcessor());
+                    writeSignedInt(l.getRamGB());
+                    writeSignedInt(l.getStorageGB());
+                    writeString(l.getStorageType());
+                    writeDouble(l.getScreenSize());
+                    writeBoolean(l.gethasDedicatedGPU());
+                    writeString(l.getOperatingSystem());
+                }
+                case TAG_TABLET -> {
+                    Tablet t = (Tablet) it;
+                    writeString(t.getModel());
+                    writeDouble(t.getScreenSize());
+                    writeSignedInt(t.getStorageGB());
+                    writeSignedInt(t.getRamGB());
+                    writeBoolean(t.hasCellular());
+                    writeString(t.getOperatingSystem());
+                    writeDouble(t.getBatteryLifeHours());
+                    writeBoolean(t.supportsPen());
+                }
+                case TAG_ACCESSORIES -> {
+                    Accessories a = (Accessories) it;
+                    writeString(a.getItemCompatibility());
+                    writeString(a.getAccessoryType());
+                }
+                case TAG_HOUSEHOLD -> {
+                    Household h = (Household) it;
+                    writeSignedInt(h.getPowerWatts());
+                    writeString(h.getEnergyRating());
+                }
+                default -> { }
+            }
+        }
+
+        private void writeSupplier(Supplier s) throws IOException {
+            writeVarInt(TAG_SUPPLIER);
+            writeString(s.getSupplierName());
+            writeString(s.getContactInfo());
+            writeObjectList(s.getItemsSupplied());
+            writeEnumSet(s.getSectorsSupplied());
+        }
+
+        private void writeEmployee(Employee e) throws IOException {
+            writeSignedInt(e.employeeId);
+            writeString(e.firstName);
+            writeString(e.lastName);
+            writeDate(e.dateOfBirth);
+            writeString(e.phone);
+            writeString(e.email);
+            writeDouble(e.salary);
+            writeString(e.username);
+            writeString(e.password);
+            writeDate(e.lastLogIn);
+            writeBoolean(e.isFirstLogin);
+            writeEnumSet(e.permissions);
+        }
+
+        // cashiers are not written here: each cashier stores its manager's id
+        private void writeManager(Manager m) throws IOException {
+            writeVarInt(TAG_MANAGER);
+            writeEmployee(m);
+            writeEnumSet(m.getSectors());
+            List<Item> inventory = m.getInventory() == null ? List.of() : m.getInventory().getItemsInInventory();
+            List<String> unresolved = m.unresolvedItemIds == null ? List.of() : m.unresolvedItemIds;
+            writeVarInt(inventory.size() + unresolved.size());
+            for (Item it : inventory) writeString(it.getItemId());
+            for (String id : unresolved) writeString(id);
+            writeDouble(m.getTotalSpendings());
+        }
+
+        private void writeCashier(Cashier c) throws IOException {
+            writeVarInt(TAG_CASHIER);
+            writeEmployee(c);
+            writeEnumSet(c.getSectors());
+            writeSignedInt(c.getManagerId());
+            writeSignedInt(c.totalBillNumbers);
+        }
+
+        private void writeAdmin(Administrator a) throws IOException {
+            writeVarInt(TAG_ADMIN);
+            writeEmployee(a);
+            writeVarInt(a.getManagers().size());
+            for (Manager m : a.getManagers()) writeSignedInt(m.getEmployeeId());
+        }
+
+        private void writeBill(Bill b) throws IOException {
+            writeVarInt(TAG_BILL);
+            writeSignedInt(b.getBillNumber());
+            writeString(b.getBuyerInfo());
+            writeDate(b.getDateBillIsGettingCut());
+            writeString(b.getCreatedByUsername());
+            List<BillLine> lines = b.getLines();
+            writeVarInt(lines.size());
+            for (BillLine line : lines) {
+                writeString(line.itemId());
+                writeString(line.itemName());
+                writeVarInt(line.quantity());
+                writeDouble(line.unitPrice());
+                writeDouble(line.discountPercentage());
+                writeEnum(line.sector());
+            }
+            writeDouble(b.getTotalBillPrice());
+            writeDouble(b.getTotalDiscount());
+            writeDouble(b.getPriceAfterDiscount());
+            List<AppliedPromotion> promotions = b.getPromotions();
+            writeVarInt(promotions.size());
+            for (AppliedPromotion p : promotions) {
+                writeSignedInt(p.promotionId());
+                writeString(p.name());
+                writeString(p.itemId());
+                writeSignedLong(p.discountCents());
+            }
+        }
+
+        private void writePromotion(Promotion p) throws IOException {
+            writeVarInt(TAG_PROMOTION);
+            writeSignedInt(p.id());
+            writeString(p.name());
+            writeEnum(p.kind());
+            writeString(p.target());
+            writeDouble(p.percent());
+            writeVarInt(p.buy());
+            writeVarInt(p.free());
+            writeSignedLong(p.thresholdCents());
+            writeBoolean(p.active());
+        }
+    }
+
+    //  reader
+
+    public static final class Reader {
+        private final DataInputStream in;
+        private final ArrayList<String> strings = new ArrayList<>();
+        private final ArrayList<Object> objects = new ArrayList<>();
+        private int version;
+
+        Reader(InputStream in) {
+            this.in = new DataInputStream(in);
+        }
+
+        void readHeader(int expectedKind, String source) throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) throw new IOException(source + " is not a Clementech data file.");
+            }
+            int kind = in.readUnsignedByte();
+            if (kind != expectedKind) {
+                throw new IOException(source + " holds data of kind " + kind + ", expected " + expectedKind + ".");
+            }
+            version = readVarInt();
+            if (version < 1 || version > SCHEMA_VERSION) {
+                throw new IOException(source + " was written with schema version " + version
+                        + ", this build reads up to " + SCHEMA_VERSION + ".");
+            }
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public int readVarInt() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readUnsignedByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IOException("Malformed varint.");
+        }
+
+        public long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = in.readUnsignedByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IOException("Malformed varlong.");
+        }
+
+        public int readSignedInt() throws IOException {
+            int v = readVarInt();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        public long readSignedLong() throws IOException {
+            long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        public double readDouble() throws IOException {
+            return in.readDouble();
+        }
+
+        public boolean readBoolean() throws IOException {
+            return in.readUnsignedByte() != 0;
+        }
+
+        public String readString() throws IOException {
+            int tag = readVarInt();
+            if (tag == 0) return null;
+            if (tag >= 2) {
+                int idx = tag - 2;
+                if (idx >= strings.size()) throw new IOException("Bad string reference " + idx);
+                return strings.get(idx);
+            }
+            byte[] b = new byte[readVarInt()];
+            in.readFully(b);
+            String s = new String(b, StandardCharsets.UTF_8);
+            strings.add(s);
+            return s;
+        }
+
+        public LocalDate readDate() throws IOException {
+            long v = readVarLong();
+            if (v == 0) return null;
+            v -= 1;
+            return LocalDate.ofEpochDay((v >>> 1) ^ -(v & 1));
+        }
+
+        public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+            String name = readString();
+            if (name == null) return null;
+            try {
+                return Enum.valueOf(type, name);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown " + type.getSimpleName() + " value: " + name, e);
+            }
+        }
+
+        public <E extends Enum<E>> void readEnumSet(Class<E> type, Set<E> into) throws IOException {
+            int n = readVarInt();
+            for (int i = 0; i < n - 1; i++) {
+                E e = readEnum(type);
+                if (e != null && into != null) into.add(e);
+            }
+        }
+
+        // returns null for a null list
+        public <T> ArrayList<T> readObjectList(Class<T> type) throws IOException {
+            int n = readVarInt();
+            if (n == 0) return null;
+            ArrayList<T> list = new ArrayList<>(n - 1);
+            for (int i = 0; i < n - 1; i++) list.add(type.cast(readObject()));
+            return list;
+        }
+
+        private <T> void readObjectListInto(Class<T> type, List<T> into) throws IOException {
+            ArrayList<T> list = readObjectList(type);
+            if (list != null && into != null) into.addAll(list);
+        }
+
+        public <T> T readObject(Class<T> type) throws IOException {
+            Object o = readObject();
+            if (o != null && !type.isInstance(o)) {
+                throw new IOException("Expected " + type.getSimpleName() + " but found " + o.getClass().getSimpleName());
+            }
+            return type.cast(o);
+        }
+
+        public Object readObject() throws IOException {
+            int ref = readVarInt();
+            if (ref == 0) return null;
+            if (ref >= 2) {
+                int idx = ref - 2;
+                if (idx >= objects.size()) throw new IOException("Bad object reference " + idx);
+                return objects.get(idx);
+            }
+
+            int tag = readVarInt();
+            return switch (tag) {
+                case TAG_PERSISTED_ITEM, TAG_PHONE, TAG_TV, TAG_LAPTOP, TAG_TABLET, TAG_ACCESSORIES, TAG_HOUSEHOLD ->
+                        readItem(tag);
+                case TAG_SUPPLIER -> readSupplier();
+                case TAG_MANAGER -> readManager();
+                case TAG_CASHIER -> readCashier();
+                case TAG_ADMIN -> readAdmin();
+                case TAG_BILL -> readBill();
+                case TAG_PROMOTION -> readPromotion();
+                default -> throw new IOException("Unknown object tag " + tag);
+            };
+        }
+
+        // registers the object before its fields are read so back references (cycles) resolve
+        private int reserve() {
+            objects.add(null);
+            return objects.size() - 1;
+        }
+
+        private Item readItem(int tag) throws IOException {
+            Item it = switch (tag) {
+                case TAG_PHONE -> new Phone();
+                case TAG_TV -> new TV();
+                case TAG_LAPTOP -> new Laptop();
+                case TAG_TABLET -> new Tablet();
+                case TAG_ACCESSORIES -> new Accessories();
+                case TAG_HOUSEHOLD -> new Household();
+                default -> new Item.PersistedItem();
+            };
+            objects.set(reserve(), it);
+
+            it.itemId = readString();
+            it.name = readString();
+            it.brand = readString();
+            it.purchasePrice = readDouble();
+            it.sellingPrice = readDouble();
+            it.purchaseDate = readDate();
+            it.supplier = readObject(Supplier.class);
+            it.sector = readEnum(Sector.class);
+            it.dateSold = readDate();
+            it.dateBought = readDate();
+            it.discountPercentage = readDouble();
+            it.stockQuatity = readSignedInt();
+            it.numberSold = readSignedInt();
+            it.thresholdNrForWarning = readSignedInt();
+
+            switch (tag) {
+                case TAG_PHONE -> {
+                    Phone p = (Phone) it;
+                    p.setPhoneModel(readString());
+                    p.setStorageGB(readSignedInt());
+                    p.setIs5G(readBoolean());
+                }
+                case TAG_TV -> {
+                    TV t = (TV) it;
+                    t.setScreenSizeInches(readSignedInt());
+                    t.setIsSmartTV(readBoolean());
+                    t.setResolution(readString());
+                }
+                case TAG_LAPTOP -> {
+                    Laptop l = (Laptop) it;
+                    l.setLaptopModel(readString());
+                    l.setProcessor(readString());
+                    l.setRamGB(readSignedInt());
+                    l.setStorageGB(readSignedInt());
+                    l.setStorageType(readString());
+                    l.setScreenSize(readDouble());
+                    l.sethasDedicatedGPU(readBoolean());
+                    l.setOperatingSystem(readString());
+                }
+                case TAG_TABLET -> {
+                    Tablet t = (Tablet) it;
+                    t.setModel(readString());
+                    t.setScreenSize(readDouble());
+                    t.setStorageGB(readSignedInt());
+                    t.setRamGB(readSignedInt());
+                    t.setHasCellular(readBoolean());
+                    t.setOperatingSystem(readString());
+                    t.setBatteryLifeHours(readDouble());
+                    t.setSupportsPen(readBoolean());
+                }
+                case TAG_ACCESSORIES -> {
+                    Accessories a = (Accessories) it;
+                    a.setItemCompatibility(readString());
+                    a.setAccessoryType(readString());
+                }
+                case TAG_HOUSEHOLD -> {
+                    Household h = (Household) it;
+                    h.setPowerWatts(readSignedInt());
+                    h.setEnergyRating(readString());
+                }
+                default -> { }
+            }
+            return it;
+        }
+
+        private Supplier readSupplier() throws IOException {
+            int slot = reserve();
+            Supplier s = new Supplier(null, null);
+            objects.set(slot, s);
+            s.setSupplierName(readString());
+            s.setContactInfo(readString());
+            readObjectListInto(Item.class, s.getItemsSupplied());
+            readEnumSet(Sector.class, s.getSectorsSupplied());
+            return s;
+        }
+
+        private void readEmployee(Employee e) throws IOException {
+            e.employeeId = readSignedInt();
+            e.firstName = readString();
+            e.lastName = readString();
+            e.dateOfBirth = readDate();
+            e.phone = readString();
+            e.email = readString();
+            e.salary = readDouble();
+            e.username = readString();
+            e.password = readString();
+            e.lastLogIn = readDate();
+            e.isFirstLogin = readBoolean();
+            readEnumSet(Permission.class, e.permissions);
+        }
+
+        private Manager readManager() throws IOException {
+            Manager m = new Manager();
+            objects.set(reserve(), m);
+            readEmployee(m);
+            readEnumSet(Sector.class, m.getSectors());
+            if (version < 3) {
+                // schema 2 embedded cashiers, inventory items and purchases
+                readObjectList(Cashier.class);
+                readObjectListInto(Item.class, m.getInventory().getItemsInInventory());
+                m.setTotalSpendings(readDouble());
+                m.itemsPurchased = readObjectList(Item.class);
+                if (m.itemsPurchased == null) m.itemsPurchased = new ArrayList<>();
+                m.purchasesChanged = !m.itemsPurchased.isEmpty();
+                return m;
+            }
+            // item ids are resolved against the catalog by DataStorage
+            int count = readVarInt();
+            for (int i = 0; i < count; i++) m.unresolvedItemIds.add(readString());
+            m.setTotalSpendings(readDouble());
+            m.itemsPurchased = null;
+            return m;
+        }
+
+        private Cashier readCashier() throws IOException {
+            Cashier c = new Cashier();
+            objects.set(reserve(), c);
+            readEmployee(c);
+            readEnumSet(Sector.class, c.getSectors());
+            if (version < 3) {
+                // schema 2 embedded the cashier's bills and a copy of its manager
+                readObjectListInto(Bill.class, c.totalBills);
+                Manager m = readObject(Manager.class);
+                c.managerId = m == null ? 0 : m.getEmployeeId();
+            } else {
+                c.managerId = readSignedInt();
+            }
+            c.totalBillNumbers = readSignedInt();
+            return c;
+        }
+
+        private Administrator readAdmin() throws IOException {
+            Administrator a = new Administrator();
+            objects.set(reserve(), a);
+            readEmployee(a);
+            if (version < 3) {
+                ArrayList<Manager> managers = readObjectList(Manager.class);
+                if (managers != null) {
+                    for (Manager m : managers) {
+                        if (m != null) a.managerIds.add(m.getEmployeeId());
+                    }
+                }
+                return a;
+            }
+            int count = readVarInt();
+            for (int i = 0; i < count; i++) a.managerIds.add(readSignedInt());
+            return a;
+        }
+
+        private Bill readBill() throws IOException {
+            int slot = reserve();
+            int number = readSignedInt();
+            String buyer = readString();
+            LocalDate date = readDate();
+            String createdBy = readString();
+            ArrayList<BillLine> lines;
+            if (version < 2) {
+                // schema 1 stored a full Item per unit sold
+                lines = Bill.toLines(readObjectList(Item.class));
+            } else {
+                int count = readVarInt();
+                lines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    lines.add(new BillLine(readString(), readString(), readVarInt(), readDouble(), readDouble(),
+                            version >= 5 ? readEnum(Sector.class) : null));
+                }
+            }
+            double total = readDouble();
+            double discount = readDouble();
+            double after = readDouble();
+            ArrayList<AppliedPromotion> promotions = new ArrayList<>();
+            if (version >= 4) {
+                int count = readVarInt();
+                for (int i = 0; i < count; i++) {
+                    promotions.add(new AppliedPromotion(readSignedInt(), readString(), readString(), readSignedLong()));
+                }
+            }
+
+            Bill b = new Bill(number, buyer, date, createdBy, lines, total, discount, after, promotions);
+            objects.set(slot, b);
+            return b;
+        }
+
+        private Promotion readPromotion() throws IOException {
+            int slot = reserve();
+            int id = readSignedInt();
+            String name = readString();
+            Promotion.Kind kind = readEnum(Promotion.Kind.class);
+            if (kind == null) throw new IOException("Promotion " + id + " has no kind");
+            Promotion p = new Promotion(id, name, kind, readString(), readDouble(),
+                    readVarInt(), readVarInt(), readSignedLong(), readBoolean());
+            objects.set(slot, p);
+            return p;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package clementechModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+// write-behind queue for DataStorage: saves run on one background thread, in order.
+// saves of the same file within COALESCE_MS collapse into one write: the last submitted
+// task for a file replaces the queued one, so a task must write the newest state it has
+public class PersistenceExecutor {
+
+    private static final long COALESCE_MS = 150;
+    private static final long SHUTDOWN_WAIT_MS = 10_000;
+
+    private static final PersistenceExecutor INSTANCE = new PersistenceExecutor();
+
+    public static PersistenceExecutor get() {
+        return INSTANCE;
+    }
+
+    public interface SaveTask {
+        void run() throws Exception;
+    }
+
+    private static class Pending {
+        final String file;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        SaveTask task;
+        ScheduledFuture<?> scheduled;
+
+        Pending(String file) {
+            this.file = file;
+        }
+    }
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "clementech-persistence");
+        t.setDaemon(true);
+        workerThread = t;
+        return t;
+    });
+
+    // file -> save waiting for its window; running = the save being written right now
+    private final Map<String, Pending> queued = new HashMap<>();
+    private volatile Pending running;
+    private volatile Thread workerThread;
+    private volatile boolean shutdown = false;
+
+    private volatile BiConsumer<String, Throwable> failureHandler = (file, e) -> e.printStackTrace();
+
+    private PersistenceExecutor() {
+        // a JVM exit without stop() (window closed from the OS, Ctrl+C) still writes what is queued
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "clementech-persistence-flush"));
+    }
+
+    // called on the persistence thread with the file name and the error
+    public void setFailureHandler(BiConsumer<String, Throwable> handler) {
+        this.failureHandler = handler == null ? (file, e) -> e.printStackTrace() : handler;
+    }
+
+    public CompletableFuture<Void> submit(String file, SaveTask task) {
+        Pending p;
+        synchronized (this) {
+            if (!shutdown) {
+                p = queued.get(file);
+                if (p == null) {
+                    p = new Pending(file);
+                    p.task = task;
+                    queued.put(file, p);
+                    Pending toRun = p;
+                    p.scheduled = worker.schedule(() -> run(toRun), COALESCE_MS, TimeUnit.MILLISECONDS);
+                } else {
+                    p.task = task;
+                }
+                return p.done;
+            }
+        }
+
+        // after shutdown the caller writes it itself
+        p = new Pending(file);
+        p.task = task;
+        run(p);
+        return p.done;
+    }
+
+    // blocks until nothing is queued or being written for this file (read-after-write)
+    public void awaitPending(String file) {
+        if (Thread.currentThread() == workerThread) return;
+
+        Pending q;
+        synchronized (this) {
+            q = queued.get(file);
+            if (q != null) expedite(q);
+        }
+        Pending r = running;
+        if (r != null && r.file.equals(file)) waitQuietly(r.done);
+        if (q != null) waitQuietly(q.done);
+    }
+
+    // writes everything that is queued now and waits for it
+    public void flush() {
+        if (Thread.currentThread() == workerThread) return;
+
+        List<Pending> all;
+        synchronized (this) {
+            all = new ArrayList<>(queued.values());
+            for (Pending p : all) expedite(p);
+        }
+        Pending r = running;
+        if (r != null) waitQuietly(r.done);
+        for (Pending p : all) waitQuietly(p.done);
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            if (shutdown) return;
+        }
+        flush();
+        synchronized (this) {
+            shutdown = true;
+        }
+        worker.shutdown();
+        try {
+            worker.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // run now instead of at the end of the window
+    private void expedite(Pending p) {
+        if (p.scheduled != null && p.scheduled.cancel(false)) {
+            p.scheduled = worker.schedule(() -> run(p), 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void run(Pending p) {
+        SaveTask task;
+        synchronized (this) {
+            // marked running before it leaves the queue, so awaitPending never misses it
+            running = p;
+            if (queued.get(p.file) == p) queued.remove(p.file);
+            task = p.task;
+        }
+
+        try {
+            task.run();
+            p.done.complete(null);
+        } catch (Throwable e) {
+            p.done.completeExceptionally(e);
+            try {
+                failureHandler.accept(p.file, e);
+            } catch (RuntimeException handlerError) {
+                handlerError.printStackTrace();
+            }
+        } finally {
+            running = null;
+        }
+    }
+
+    private static void waitQuietly(CompletableFuture<Void> f) {
+        try {
+            f.get(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CompletionException | TimeoutException e) {
+            // failures were already reported through the failure handler
+        }
+    }
+}
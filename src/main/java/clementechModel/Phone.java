@@ -12,6 +12,9 @@ public class Phone extends Item implements Serializable{
     private boolean is5G;
 
 
+    Phone() {
+    }
+
     public Phone(String itemId, String name, String brand, double purchasePrice, double SellingPrice,
                  String model, int storageGB, boolean is5G,int quantity,LocalDate dateOfPurchase, Inventory inventory)
     {
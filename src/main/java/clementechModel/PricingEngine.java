@@ -0,0 +1,108 @@
+package clementechModel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// all checkout / bill money math, in long cents.
+// the unit price is rounded to cents once, the discount per unit is rounded once, and every
+// line amount is (cents per unit) x quantity, so the checkout display and the stored bill
+// totals are the same numbers.
+// effective prices are cached per item id; an entry is dropped when ItemRepository reports the
+// item changed, and rebuilt if the item's price or discount no longer match it.
+// the table is a cache: BillLine computes from its own price snapshot with the same rules
+public class PricingEngine {
+
+    // cents per unit; effective = unit - discount
+    public record Price(long unitCents, long discountCents, long effectiveCents,
+                        double sellingPrice, double discountPercentage) {
+
+        boolean matches(Item item) {
+            return sellingPrice == item.getSellingPrice() && discountPercentage == item.getDiscountPercentage();
+        }
+    }
+
+    private static final PricingEngine INSTANCE = new PricingEngine();
+
+    public static PricingEngine get() {
+        return INSTANCE;
+    }
+
+    private final Map<String, Price> prices = new ConcurrentHashMap<>();
+
+    // kept as a field: the repository only holds listeners weakly
+    private final ItemRepository.Listener itemsListener = this::itemsChanged;
+
+    private PricingEngine() {
+        ItemRepository.get().addListener(itemsListener);
+    }
+
+    // keyed by the item's own id string: its hash is cached, so a lookup allocates nothing
+    public Price price(Item item) {
+        String id = item.getItemId() == null ? "" : item.getItemId();
+        Price p = prices.get(id);
+        if (p != null && p.matches(item)) return p;
+
+        p = priceOf(item.getSellingPrice(), item.getDiscountPercentage());
+        prices.put(id, p);
+        return p;
+    }
+
+    public long effectiveCents(Item item) {
+        return price(item).effectiveCents();
+    }
+
+    public void invalidate(String itemId) {
+        if (itemId != null) prices.remove(itemId);
+    }
+
+    // fills the table for the whole catalog, e.g. while the intro plays
+    public void warm(List<Item> items) {
+        for (Item it : items) {
+            if (it != null) price(it);
+        }
+    }
+
+    private void itemsChanged(ItemRepository.ChangeType type, List<Item> changed) {
+        if (type == ItemRepository.ChangeType.RELOADED) {
+            prices.clear();
+            return;
+        }
+        for (Item it : changed) invalidate(it.getItemId());
+    }
+
+    // ---- cents arithmetic, shared with BillLine ----
+
+    static Price priceOf(double sellingPrice, double discountPercentage) {
+        long unit = toCents(sellingPrice);
+        long discount = discountCents(unit, discountPercentage);
+        return new Price(unit, discount, unit - discount, sellingPrice, discountPercentage);
+    }
+
+    // discountPercentage is 0 to 100; clamped like the checkout always did
+    static long discountCents(long unitCents, double discountPercentage) {
+        double pct = Math.max(0, Math.min(100, discountPercentage));
+        return Math.round(unitCents * pct / 100.0);
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    // "1234.50" / "-0.05" without String.format
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(16);
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        long frac = cents % 100;
+        sb.append(cents / 100).append('.');
+        if (frac < 10) sb.append('0');
+        return sb.append(frac).toString();
+    }
+}
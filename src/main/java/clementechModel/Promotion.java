@@ -0,0 +1,63 @@
+package clementechModel;
+
+import java.io.Serializable;
+
+// a promotion rule on top of the item discounts (see PromotionEngine).
+// target is the Sector name, brand, supplier name or item id, depending on the kind;
+// percent is 0 to 100; buy/free are for BUY_N_GET_M; thresholdCents is for CART_THRESHOLD
+public record Promotion(int id, String name, Kind kind, String target, double percent,
+                        int buy, int free, long thresholdCents, boolean active) implements Serializable {
+
+    public enum Kind { SECTOR, BRAND, SUPPLIER, BUY_N_GET_M, CART_THRESHOLD }
+
+    public Promotion {
+        if (kind == null) throw new IllegalArgumentException("Promotion kind cannot be null.");
+        name = name == null ? "" : name.trim();
+        target = target == null ? "" : target.trim();
+        if (percent < 0 || percent > 100) throw new IllegalArgumentException("Percentage must be between 0 and 100.");
+        if (kind == Kind.BUY_N_GET_M && (buy <= 0 || free <= 0)) {
+            throw new IllegalArgumentException("Buy and free quantities must be positive.");
+        }
+        if (kind == Kind.CART_THRESHOLD && thresholdCents <= 0) {
+            throw new IllegalArgumentException("Cart threshold must be positive.");
+        }
+        if (kind != Kind.CART_THRESHOLD && target.isEmpty()) {
+            throw new IllegalArgumentException("Promotion target cannot be empty.");
+        }
+    }
+
+    public static Promotion sector(int id, String name, Sector sector, double percent) {
+        return new Promotion(id, name, Kind.SECTOR, sector == null ? null : sector.name(), percent, 0, 0, 0, true);
+    }
+
+    public static Promotion brand(int id, String name, String brand, double percent) {
+        return new Promotion(id, name, Kind.BRAND, brand, percent, 0, 0, 0, true);
+    }
+
+    public static Promotion supplier(int id, String name, String supplierName, double percent) {
+        return new Promotion(id, name, Kind.SUPPLIER, supplierName, percent, 0, 0, 0, true);
+    }
+
+    // every buy + free units of the item, free of them cost nothing
+    public static Promotion buyNGetM(int id, String name, String itemId, int buy, int free) {
+        return new Promotion(id, name, Kind.BUY_N_GET_M, itemId, 0, buy, free, 0, true);
+    }
+
+    public static Promotion cartThreshold(int id, String name, long thresholdCents, double percent) {
+        return new Promotion(id, name, Kind.CART_THRESHOLD, null, percent, 0, 0, thresholdCents, true);
+    }
+
+    public Promotion withActive(boolean a) {
+        return new Promotion(id, name, kind, target, percent, buy, free, thresholdCents, a);
+    }
+
+    public String describe() {
+        return switch (kind) {
+            case SECTOR -> name + " (" + percent + "% off sector " + target + ")";
+            case BRAND -> name + " (" + percent + "% off brand " + target + ")";
+            case SUPPLIER -> name + " (" + percent + "% off supplier " + target + ")";
+            case BUY_N_GET_M -> name + " (buy " + buy + " get " + free + " free: " + target + ")";
+            case CART_THRESHOLD -> name + " (" + percent + "% off carts from " + PricingEngine.format(thresholdCents) + ")";
+        };
+    }
+}
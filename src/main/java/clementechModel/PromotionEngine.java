@@ -0,0 +1,236 @@
+package clementechModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// evaluates the promotion rules (promotions.dat) against a cart or a bill.
+// the active rules are compiled into lookup tables by sector, brand, supplier and item id,
+// and the rules that can touch an item are resolved once per item id, so a cart line costs
+// one map lookup plus its few candidate rules.
+// per line the best line rule wins (they do not stack); promotions come on top of the item's
+// own discount. a cart-threshold rule then takes its percentage off what is left, the
+// highest threshold the cart reaches wins
+public class PromotionEngine {
+
+    // discounts per input line (0 and null where nothing applied) and the cart-wide one.
+    // a caller that evaluates often (the checkout totals) keeps one and passes it back in;
+    // the arrays only grow, entries past the evaluated lines mean nothing
+    public static final class Result {
+        public long[] lineDiscountCents;
+        public Promotion[] lineRules;
+        public Promotion cartRule;
+        public long cartDiscountCents;
+        public long totalDiscountCents;
+
+        public Result() {
+            this(0);
+        }
+
+        Result(int lines) {
+            lineDiscountCents = new long[lines];
+            lineRules = new Promotion[lines];
+        }
+
+        private void reset(int lines) {
+            if (lineDiscountCents.length < lines) {
+                int size = Math.max(lines, lineDiscountCents.length * 2);
+                lineDiscountCents = new long[size];
+                lineRules = new Promotion[size];
+            } else {
+                Arrays.fill(lineDiscountCents, 0, lines, 0L);
+                Arrays.fill(lineRules, 0, lines, null);
+            }
+            cartRule = null;
+            cartDiscountCents = 0;
+            totalDiscountCents = 0;
+        }
+    }
+
+    private static final Promotion[] NONE = new Promotion[0];
+
+    private static final class Compiled {
+        final List<Promotion> all;
+        final Map<Sector, Promotion[]> bySector = new EnumMap<>(Sector.class);
+        final Map<String, Promotion[]> byBrand = new HashMap<>();
+        final Map<String, Promotion[]> bySupplier = new HashMap<>();
+        final Map<String, Promotion[]> byItem = new HashMap<>();
+        // highest threshold first
+        final Promotion[] thresholds;
+        // item id as stored on the item -> every rule that can apply to it
+        final Map<String, Promotion[]> perItem = new ConcurrentHashMap<>();
+
+        Compiled(List<Promotion> promotions) {
+            all = List.copyOf(promotions);
+            Map<Sector, List<Promotion>> sectors = new EnumMap<>(Sector.class);
+            Map<String, List<Promotion>> brands = new HashMap<>();
+            Map<String, List<Promotion>> suppliers = new HashMap<>();
+            Map<String, List<Promotion>> items = new HashMap<>();
+            List<Promotion> carts = new ArrayList<>();
+
+            for (Promotion p : promotions) {
+                if (p == null || !p.active()) continue;
+                switch (p.kind()) {
+                    case SECTOR -> {
+                        Sector s = sectorOf(p.target());
+                        if (s != null) sectors.computeIfAbsent(s, k -> new ArrayList<>()).add(p);
+                    }
+                    case BRAND -> brands.computeIfAbsent(key(p.target()), k -> new ArrayList<>()).add(p);
+                    case SUPPLIER -> suppliers.computeIfAbsent(key(p.target()), k -> new ArrayList<>()).add(p);
+                    case BUY_N_GET_M -> items.computeIfAbsent(key(p.target()), k -> new ArrayList<>()).add(p);
+                    case CART_THRESHOLD -> carts.add(p);
+                }
+            }
+            sectors.forEach((k, v) -> bySector.put(k, v.toArray(NONE)));
+            brands.forEach((k, v) -> byBrand.put(k, v.toArray(NONE)));
+            suppliers.forEach((k, v) -> bySupplier.put(k, v.toArray(NONE)));
+            items.forEach((k, v) -> byItem.put(k, v.toArray(NONE)));
+
+            thresholds = carts.toArray(NONE);
+            Arrays.sort(thresholds, (a, b) -> Long.compare(b.thresholdCents(), a.thresholdCents()));
+        }
+
+        Promotion[] rulesFor(String itemId, Item item) {
+            if (item == null) return byItem.getOrDefault(key(itemId), NONE);
+            return perItem.computeIfAbsent(itemId, id -> {
+                List<Promotion> out = new ArrayList<>();
+                if (item.getSector() != null) out.addAll(Arrays.asList(bySector.getOrDefault(item.getSector(), NONE)));
+                out.addAll(Arrays.asList(byBrand.getOrDefault(key(item.getItemBrand()), NONE)));
+                out.addAll(Arrays.asList(bySupplier.getOrDefault(key(item.getSupplier()), NONE)));
+                out.addAll(Arrays.asList(byItem.getOrDefault(key(id), NONE)));
+                return out.toArray(NONE);
+            });
+        }
+    }
+
+    private static final PromotionEngine INSTANCE = new PromotionEngine();
+
+    public static PromotionEngine get() {
+        return INSTANCE;
+    }
+
+    private volatile Compiled compiled;
+
+    // kept as a field: the repository only holds listeners weakly
+    private final ItemRepository.Listener itemsListener = (type, changed) -> {
+        Compiled c = compiled;
+        if (c == null) return;
+        // sector / brand / supplier of a reloaded or edited item may differ now
+        if (type == ItemRepository.ChangeType.RELOADED) c.perItem.clear();
+        else for (Item it : changed) c.perItem.remove(it.getItemId() == null ? "" : it.getItemId());
+    };
+
+    private PromotionEngine() {
+        ItemRepository.get().addListener(itemsListener);
+    }
+
+    public List<Promotion> getPromotions() {
+        return compiled().all;
+    }
+
+    // replaces the rule set (already saved by the caller)
+    public void setPromotions(List<Promotion> promotions) {
+        compiled = new Compiled(promotions);
+    }
+
+    // unitCents[i] is the price per unit after the item's own discount
+    public Result evaluate(int lines, String[] itemIds, Item[] items, long[] unitCents, int[] quantities) {
+        return evaluate(lines, itemIds, items, unitCents, quantities, new Result(lines));
+    }
+
+    // fills r (cleared first) instead of allocating a new one
+    public Result evaluate(int lines, String[] itemIds, Item[] items, long[] unitCents, int[] quantities, Result r) {
+        Compiled c = compiled();
+        r.reset(lines);
+        long net = 0;
+
+        for (int i = 0; i < lines; i++) {
+            long lineCents = unitCents[i] * quantities[i];
+            for (Promotion p : c.rulesFor(itemIds[i], items[i])) {
+                long d = lineDiscount(p, unitCents[i], quantities[i]);
+                if (d > r.lineDiscountCents[i]) {
+                    r.lineDiscountCents[i] = d;
+                    r.lineRules[i] = p;
+                }
+            }
+            net += lineCents - r.lineDiscountCents[i];
+            r.totalDiscountCents += r.lineDiscountCents[i];
+        }
+
+        for (Promotion p : c.thresholds) {
+            if (net >= p.thresholdCents()) {
+                r.cartRule = p;
+                r.cartDiscountCents = Math.round(net * p.percent() / 100.0);
+                r.totalDiscountCents += r.cartDiscountCents;
+                break;
+            }
+        }
+        return r;
+    }
+
+    // records the promotions on the bill (DataStorage.commitBill, before the log record)
+    void apply(Bill bill) {
+        List<BillLine> lines = bill.getLines();
+        int n = lines.size();
+        String[] ids = new String[n];
+        Item[] items = new Item[n];
+        long[] unit = new long[n];
+        int[] qty = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            BillLine line = lines.get(i);
+            ids[i] = line.itemId();
+            items[i] = bill.liveItem(line.itemId());
+            if (items[i] == null) items[i] = ItemRepository.get().findLoaded(line.itemId());
+            long cents = PricingEngine.toCents(line.unitPrice());
+            unit[i] = cents - PricingEngine.discountCents(cents, line.discountPercentage());
+            qty[i] = line.quantity();
+        }
+
+        Result r = evaluate(n, ids, items, unit, qty);
+        List<AppliedPromotion> applied = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Promotion p = r.lineRules[i];
+            if (p != null) applied.add(new AppliedPromotion(p.id(), p.name(), ids[i], r.lineDiscountCents[i]));
+        }
+        if (r.cartRule != null && r.cartDiscountCents > 0) {
+            applied.add(new AppliedPromotion(r.cartRule.id(), r.cartRule.name(), null, r.cartDiscountCents));
+        }
+        bill.setPromotions(applied);
+    }
+
+    private static long lineDiscount(Promotion p, long unitCents, int qty) {
+        return switch (p.kind()) {
+            case SECTOR, BRAND, SUPPLIER -> Math.round(unitCents * qty * p.percent() / 100.0);
+            case BUY_N_GET_M -> (long) (qty / (p.buy() + p.free())) * p.free() * unitCents;
+            case CART_THRESHOLD -> 0;
+        };
+    }
+
+    // the stored rules are read on first use
+    private Compiled compiled() {
+        Compiled c = compiled;
+        if (c == null) {
+            synchronized (this) {
+                if (compiled == null) compiled = new Compiled(DataStorage.loadPromotions());
+                c = compiled;
+            }
+        }
+        return c;
+    }
+
+    private static Sector sectorOf(String name) {
+        for (Sector s : Sector.values()) {
+            if (s.name().equalsIgnoreCase(name)) return s;
+        }
+        return null;
+    }
+
+    private static String key(String s) {
+        return s == null ? "" : s.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,183 @@
+package clementechModel;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// receipts kept as one append-only text file per day (receipts/YYYY-MM-DD.txt) plus a
+// small index next to it (YYYY-MM-DD.idx, 16 bytes per receipt: billNumber, offset, length).
+// showing a receipt loads that day's index once and does a single positioned read
+public class ReceiptArchive {
+
+    private static final int INDEX_RECORD_BYTES = 16;
+    private static final int CACHED_DAYS = 32;
+    private static final byte[] SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    public record Entry(int billNumber, long offset, int length) {}
+
+    private final File dir;
+
+    // day -> billNumber -> entry (a repeated bill number keeps the latest receipt)
+    private final Map<LocalDate, Map<Integer, Entry>> indexCache =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LocalDate, Map<Integer, Entry>> eldest) {
+                    return size() > CACHED_DAYS;
+                }
+            };
+
+    public ReceiptArchive(String dirName) {
+        this.dir = new File(dirName);
+    }
+
+    // appends receipts of one day: one open of the text file and one of the index
+    public synchronized void append(LocalDate day, List<Integer> billNumbers, List<String> texts) throws IOException {
+        if (billNumbers.size() != texts.size()) throw new IllegalArgumentException("One text per bill number.");
+        if (billNumbers.isEmpty()) return;
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("Could not create " + dir.getPath());
+
+        File textFile = textFile(day);
+        File indexFile = indexFile(day);
+        repairIndex(indexFile, textFile);
+
+        List<Entry> written = new ArrayList<>();
+        try (FileChannel text = FileChannel.open(textFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long offset = text.size();
+            for (int i = 0; i < texts.size(); i++) {
+                byte[] bytes = texts.get(i).getBytes(StandardCharsets.UTF_8);
+                writeFully(text, ByteBuffer.wrap(bytes));
+                writeFully(text, ByteBuffer.wrap(SEPARATOR));
+                written.add(new Entry(billNumbers.get(i), offset, bytes.length));
+                offset += bytes.length + SEPARATOR.length;
+            }
+        }
+
+        // index after text: a crash in between leaves unreferenced text, never a dangling entry
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            for (Entry e : written) {
+                out.writeInt(e.billNumber());
+                out.writeLong(e.offset());
+                out.writeInt(e.length());
+            }
+        }
+
+        Map<Integer, Entry> cached = indexCache.get(day);
+        if (cached != null) {
+            for (Entry e : written) cached.put(e.billNumber(), e);
+        }
+    }
+
+    // null if the receipt is not archived
+    public synchronized String read(int billNumber, LocalDate day) throws IOException {
+        if (day == null) return null;
+        Entry e = index(day).get(billNumber);
+        if (e == null) return null;
+
+        ByteBuffer buf = ByteBuffer.allocate(e.length());
+        try (FileChannel ch = FileChannel.open(textFile(day).toPath(), StandardOpenOption.READ)) {
+            long pos = e.offset();
+            while (buf.hasRemaining()) {
+                int n = ch.read(buf, pos);
+                if (n < 0) throw new EOFException("Receipt " + billNumber + " is cut off in " + textFile(day).getName());
+                pos += n;
+            }
+        }
+        return new String(buf.array(), StandardCharsets.UTF_8);
+    }
+
+    // writes Bill_<n>_<date>.txt files, the old one-file-per-bill layout, into target
+    public synchronized int export(LocalDate from, LocalDate to, File target) throws IOException {
+        if (!target.exists() && !target.mkdirs()) throw new IOException("Could not create " + target.getPath());
+
+        int count = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (!indexFile(day).exists()) continue;
+            for (Entry e : index(day).values()) {
+                count += exportOne(e.billNumber(), day, target) ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    public synchronized boolean exportOne(int billNumber, LocalDate day, File target) throws IOException {
+        String text = read(billNumber, day);
+        if (text == null) return false;
+        if (!target.exists() && !target.mkdirs()) throw new IOException("Could not create " + target.getPath());
+
+        try (FileWriter fw = new FileWriter(new File(target, "Bill_" + billNumber + "_" + day + ".txt"))) {
+            fw.write(text);
+        }
+        return true;
+    }
+
+    private Map<Integer, Entry> index(LocalDate day) throws IOException {
+        Map<Integer, Entry> cached = indexCache.get(day);
+        if (cached != null) return cached;
+
+        Map<Integer, Entry> map = new HashMap<>();
+        File indexFile = indexFile(day);
+        if (indexFile.exists()) {
+            repairIndex(indexFile, textFile(day));
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                long records = indexFile.length() / INDEX_RECORD_BYTES;
+                for (long i = 0; i < records; i++) {
+                    Entry e = new Entry(in.readInt(), in.readLong(), in.readInt());
+                    map.put(e.billNumber(), e);
+                }
+            }
+        }
+        indexCache.put(day, map);
+        return map;
+    }
+
+    // drops a torn last index record, and records pointing past the end of the text file
+    private static void repairIndex(File indexFile, File textFile) throws IOException {
+        if (!indexFile.exists()) return;
+
+        long len = indexFile.length();
+        long keep = len - (len % INDEX_RECORD_BYTES);
+        long textLength = textFile.length();
+
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+            while (keep >= INDEX_RECORD_BYTES) {
+                raf.seek(keep - INDEX_RECORD_BYTES + 4);
+                long offset = raf.readLong();
+                int length = raf.readInt();
+                if (offset + length <= textLength) break;
+                keep -= INDEX_RECORD_BYTES;
+            }
+            if (keep != len) raf.setLength(keep);
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    private File textFile(LocalDate day) {
+        return new File(dir, day + ".txt");
+    }
+
+    private File indexFile(LocalDate day) {
+        return new File(dir, day + ".idx");
+    }
+}
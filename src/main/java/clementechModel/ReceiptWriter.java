@@ -0,0 +1,107 @@
+package clementechModel;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// writes finalized receipts on the persistence thread into the daily ReceiptArchive.
+// the text is rendered once at finalize time; receipts finalized within the coalescing
+// window are appended as one batch per day
+public class ReceiptWriter {
+
+    private static final String RECEIPTS_KEY = "receipts";
+    private static final ReceiptWriter INSTANCE = new ReceiptWriter();
+
+    public static ReceiptWriter get() {
+        return INSTANCE;
+    }
+
+    private record Receipt(int billNumber, LocalDate day, String text) {}
+
+    private final ReceiptArchive archive = new ReceiptArchive("receipts");
+    private final ArrayDeque<Receipt> pending = new ArrayDeque<>();
+
+    private ReceiptWriter() {
+    }
+
+    public CompletableFuture<Void> submit(Bill bill) {
+        if (bill == null) throw new IllegalArgumentException("Bill cannot be null.");
+
+        // rendered here, while the bill and its items still hold the sold state
+        LocalDate day = bill.getDateBillIsGettingCut() == null ? LocalDate.now() : bill.getDateBillIsGettingCut();
+        Receipt r = new Receipt(bill.getBillNumber(), day, bill.getBillInfo());
+        synchronized (pending) {
+            pending.add(r);
+        }
+        return PersistenceExecutor.get().submit(RECEIPTS_KEY, this::writePending);
+    }
+
+    // the archived receipt text; bills from before the archive are rendered from the bill
+    public String read(Bill bill) throws IOException {
+        PersistenceExecutor.get().awaitPending(RECEIPTS_KEY);
+        String text = archive.read(bill.getBillNumber(), bill.getDateBillIsGettingCut());
+        return text != null ? text : bill.getBillInfo();
+    }
+
+    // on-demand Bill_<n>_<date>.txt, e.g. to print or mail a single receipt
+    public File export(Bill bill, File targetDir) throws IOException {
+        String text = read(bill);
+        if (!targetDir.exists() && !targetDir.mkdirs()) throw new IOException("Could not create " + targetDir.getPath());
+
+        File out = new File(targetDir, "Bill_" + bill.getBillNumber() + "_" + bill.getDateBillIsGettingCut() + ".txt");
+        try (FileWriter fw = new FileWriter(out)) {
+            fw.write(text);
+        }
+        return out;
+    }
+
+    // every archived receipt dated from..to, one text file each
+    public int export(LocalDate from, LocalDate to, File targetDir) throws IOException {
+        PersistenceExecutor.get().awaitPending(RECEIPTS_KEY);
+        return archive.export(from, to, targetDir);
+    }
+
+    public void flush() {
+        PersistenceExecutor.get().awaitPending(RECEIPTS_KEY);
+    }
+
+    private void writePending() throws IOException {
+        ArrayDeque<Receipt> batch;
+        synchronized (pending) {
+            batch = new ArrayDeque<>(pending);
+            pending.clear();
+        }
+
+        Map<LocalDate, List<Receipt>> byDay = new LinkedHashMap<>();
+        for (Receipt r : batch) byDay.computeIfAbsent(r.day(), d -> new ArrayList<>()).add(r);
+
+        try {
+            for (Map.Entry<LocalDate, List<Receipt>> e : byDay.entrySet()) {
+                List<Integer> numbers = new ArrayList<>();
+                List<String> texts = new ArrayList<>();
+                for (Receipt r : e.getValue()) {
+                    numbers.add(r.billNumber());
+                    texts.add(r.text());
+                }
+                archive.append(e.getKey(), numbers, texts);
+                batch.removeAll(e.getValue());
+            }
+        } finally {
+            // unwritten receipts go back to the front for the next attempt
+            if (!batch.isEmpty()) {
+                synchronized (pending) {
+                    Iterator<Receipt> it = batch.descendingIterator();
+                    while (it.hasNext()) pending.addFirst(it.next());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package clementechModel;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// sales per day, cashier and sector, kept up to date as bills reach the bill store
+// (salesrollup.dat plus the rows of each later batch of bills in salesrollup.log, see
+// SalesRollupLog). the bill screens sum the rows of the days they show instead of every bill.
+// the row with sector null is the whole bill (cart-wide promotions included); the sector rows
+// split the lines, a bill counts once in every sector it sold something from.
+// billCount is the number of stored bills the rows include; DataStorage rebuilds the rows from
+// the bills when it does not match the store (crash between the two writes, older data).
+// a finalized bill still queued for the bill store is counted from a separate pending overlay,
+// so the totals include it at once but the stored rows (and salesrollup.dat) never do early
+public class SalesRollup {
+
+    public static final class Totals {
+        private int bills;
+        private int units;
+        private long grossCents;
+        private long discountCents;
+        private long netCents;
+
+        public int getBills() { return bills; }
+        public int getUnits() { return units; }
+        public long getGrossCents() { return grossCents; }
+        public long getDiscountCents() { return discountCents; }
+        public long getNetCents() { return netCents; }
+
+        public double getGross() { return PricingEngine.toAmount(grossCents); }
+        public double getDiscount() { return PricingEngine.toAmount(discountCents); }
+        public double getNet() { return PricingEngine.toAmount(netCents); }
+
+        private void add(int bills, int units, long gross, long discount, long net) {
+            this.bills += bills;
+            this.units += units;
+            this.grossCents += gross;
+            this.discountCents += discount;
+            this.netCents += net;
+        }
+
+        private void add(Totals t) {
+            add(t.bills, t.units, t.grossCents, t.discountCents, t.netCents);
+        }
+    }
+
+    private record Key(String cashier, Sector sector) {}
+
+    private static final SalesRollup INSTANCE = new SalesRollup();
+
+    public static SalesRollup get() {
+        return INSTANCE;
+    }
+
+    private final NavigableMap<LocalDate, Map<Key, Totals>> days = new TreeMap<>();
+    private long billCount;
+
+    // finalized bills not in the bill store yet, and their rows (built when next read)
+    private final List<Bill> pending = new ArrayList<>();
+    private SalesRollup pendingRows;
+
+    private SalesRollup() {
+    }
+
+    // a set of rows outside the shared one: the change one batch of bills makes
+    static SalesRollup empty() {
+        return new SalesRollup();
+    }
+
+    static SalesRollup of(List<Bill> bills) {
+        SalesRollup delta = new SalesRollup();
+        for (Bill b : bills) delta.add(b);
+        return delta;
+    }
+
+    // from = null: from the first day; cashier blank: every cashier
+    public Totals total(LocalDate from, LocalDate to, String cashier) {
+        DataStorage.loadSalesRollup();
+        String who = key(cashier);
+        Totals out = new Totals();
+        synchronized (this) {
+            for (SalesRollup rows : List.of(this, pendingRows())) {
+                for (Map<Key, Totals> day : rows.range(from, to).values()) {
+                    for (Map.Entry<Key, Totals> e : day.entrySet()) {
+                        if (e.getKey().sector() == null && (who.isEmpty() || who.equals(e.getKey().cashier()))) {
+                            out.add(e.getValue());
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    public Map<Sector, Totals> bySector(LocalDate from, LocalDate to, String cashier) {
+        DataStorage.loadSalesRollup();
+        String who = key(cashier);
+        Map<Sector, Totals> out = new EnumMap<>(Sector.class);
+        synchronized (this) {
+            for (SalesRollup rows : List.of(this, pendingRows())) {
+                for (Map<Key, Totals> day : rows.range(from, to).values()) {
+                    for (Map.Entry<Key, Totals> e : day.entrySet()) {
+                        Sector s = e.getKey().sector();
+                        if (s != null && (who.isEmpty() || who.equals(e.getKey().cashier()))) {
+                            out.computeIfAbsent(s, k -> new Totals()).add(e.getValue());
+                        }
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    // a bill was finalized (DataStorage.appendBillAsync); counted until it reaches the store
+    synchronized void addPending(Bill bill) {
+        pending.add(bill);
+        pendingRows = null;
+    }
+
+    // these bills reached the store: their rows move from the overlay into the stored rows
+    synchronized void stored(List<Bill> bills, SalesRollup delta) {
+        if (delta != null) merge(delta);
+        int before = pending.size();
+        for (Bill b : bills) {
+            for (int i = 0; i < pending.size(); i++) {
+                if (pending.get(i) == b) {
+                    pending.remove(i);
+                    break;
+                }
+            }
+        }
+        if (pending.size() != before) pendingRows = null;
+    }
+
+    private SalesRollup pendingRows() {
+        if (pendingRows == null) pendingRows = of(pending);
+        return pendingRows;
+    }
+
+    // one stored bill; the work is per line, not per stored bill
+    synchronized void add(Bill bill) {
+        billCount++;
+        LocalDate day = bill.getDateBillIsGettingCut();
+        if (day == null) return;
+
+        String cashier = key(bill.getCreatedByUsername());
+        Map<Key, Totals> rows = days.computeIfAbsent(day, d -> new HashMap<>());
+        rows.computeIfAbsent(new Key(cashier, null), k -> new Totals()).add(1, bill.getItemCount(),
+                PricingEngine.toCents(bill.getTotalBillPrice()),
+                PricingEngine.toCents(bill.getTotalDiscount()),
+                PricingEngine.toCents(bill.getPriceAfterDiscount()));
+
+        Map<String, Long> promoted = new HashMap<>();
+        for (AppliedPromotion p : bill.getPromotions()) {
+            if (p.itemId() != null) promoted.merge(key(p.itemId()), p.discountCents(), Long::sum);
+        }
+
+        Set<Sector> counted = new HashSet<>();
+        for (BillLine line : bill.getLines()) {
+            Sector s = sectorOf(line);
+            if (s == null) continue;
+
+            long gross = line.getTotalCents();
+            Long promo = promoted.remove(key(line.itemId()));
+            long discount = line.getDiscountCents() + (promo == null ? 0 : promo);
+            rows.computeIfAbsent(new Key(cashier, s), k -> new Totals())
+                    .add(counted.add(s) ? 1 : 0, line.quantity(), gross, discount, gross - discount);
+        }
+    }
+
+    // recorded on the line when it was sold; lines from before that take the item's current sector
+    private static Sector sectorOf(BillLine line) {
+        if (line.sector() != null) return line.sector();
+        Item item = ItemRepository.get().findLoaded(line.itemId());
+        return item == null ? null : item.getSector();
+    }
+
+    synchronized void merge(SalesRollup delta) {
+        billCount += delta.billCount;
+        for (Map.Entry<LocalDate, Map<Key, Totals>> day : delta.days.entrySet()) {
+            Map<Key, Totals> rows = days.computeIfAbsent(day.getKey(), d -> new HashMap<>());
+            for (Map.Entry<Key, Totals> e : day.getValue().entrySet()) {
+                rows.computeIfAbsent(e.getKey(), k -> new Totals()).add(e.getValue());
+            }
+        }
+    }
+
+    synchronized void clear() {
+        days.clear();
+        billCount = 0;
+    }
+
+    synchronized long getBillCount() {
+        return billCount;
+    }
+
+    // body of salesrollup.dat and of each salesrollup.log record
+    synchronized void write(ModelCodec.Writer w) throws IOException {
+        w.writeSignedLong(billCount);
+        w.writeVarInt(days.size());
+        for (Map.Entry<LocalDate, Map<Key, Totals>> day : days.entrySet()) {
+            w.writeDate(day.getKey());
+            w.writeVarInt(day.getValue().size());
+            for (Map.Entry<Key, Totals> e : day.getValue().entrySet()) {
+                Totals t = e.getValue();
+                w.writeString(e.getKey().cashier());
+                w.writeEnum(e.getKey().sector());
+                w.writeVarInt(t.bills);
+                w.writeVarInt(t.units);
+                w.writeSignedLong(t.grossCents);
+                w.writeSignedLong(t.discountCents);
+                w.writeSignedLong(t.netCents);
+            }
+        }
+    }
+
+    synchronized void read(ModelCodec.Reader r) throws IOException {
+        clear();
+        billCount = r.readSignedLong();
+        int dayCount = r.readVarInt();
+        for (int i = 0; i < dayCount; i++) {
+            Map<Key, Totals> rows = days.computeIfAbsent(r.readDate(), d -> new HashMap<>());
+            int rowCount = r.readVarInt();
+            for (int j = 0; j < rowCount; j++) {
+                String cashier = r.readString();
+                Sector sector = r.readEnum(Sector.class);
+                Totals t = new Totals();
+                t.add(r.readVarInt(), r.readVarInt(), r.readSignedLong(), r.readSignedLong(), r.readSignedLong());
+                rows.put(new Key(cashier == null ? "" : cashier, sector), t);
+            }
+        }
+    }
+
+    private NavigableMap<LocalDate, Map<Key, Totals>> range(LocalDate from, LocalDate to) {
+        if (from == null && to == null) return days;
+        if (from == null) return days.headMap(to, true);
+        if (to == null) return days.tailMap(from, true);
+        if (to.isBefore(from)) return new TreeMap<>();
+        return days.subMap(from, true, to, true);
+    }
+
+    private static String key(String s) {
+        return s == null ? "" : s.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,90 @@
+package clementechModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// the sales rows added since salesrollup.dat was last written: one record per batch of stored
+// bills, holding only the rows those bills changed. appending does not fsync; a lost or torn
+// tail only makes the rollup's bill count disagree with the store, which rebuilds it.
+// a checkpoint folds the records into salesrollup.dat and empties the file.
+// record layout: [int payloadLength][int crc32][payload]
+class SalesRollupLog {
+
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final File file;
+
+    SalesRollupLog(String fileName) {
+        this.file = new File(fileName);
+    }
+
+    synchronized void append(SalesRollup delta) throws IOException {
+        byte[] payload = ModelCodec.encode(ModelCodec.KIND_SALES_ROLLUP_DELTA, delta::write);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(crcOf(payload)).put(payload).flip();
+
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining()) ch.write(record);
+        }
+    }
+
+    // every complete record, oldest first; a torn tail is cut off
+    synchronized List<SalesRollup> readAll() throws IOException {
+        List<SalesRollup> out = new ArrayList<>();
+        if (!file.exists()) return out;
+
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long pos = 0;
+            long size = ch.size();
+            while (pos + RECORD_HEADER_BYTES <= size) {
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+                readFully(ch, header, pos);
+                header.flip();
+                int length = header.getInt();
+                int crc = header.getInt();
+                if (length < 0 || pos + RECORD_HEADER_BYTES + length > size) break;
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(ch, payload, pos + RECORD_HEADER_BYTES);
+                if (crcOf(payload.array()) != crc) break;
+
+                out.add(ModelCodec.decode(payload.array(), ModelCodec.KIND_SALES_ROLLUP_DELTA, r -> {
+                    SalesRollup delta = SalesRollup.empty();
+                    delta.read(r);
+                    return delta;
+                }));
+                pos += RECORD_HEADER_BYTES + length;
+            }
+            if (pos != size) ch.truncate(pos);
+        }
+        return out;
+    }
+
+    // after salesrollup.dat has been written with every record folded in
+    synchronized void clear() throws IOException {
+        if (!file.exists()) return;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            ch.truncate(0);
+        }
+    }
+
+    private void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+            if (n < 0) throw new IOException("Unexpected end of " + file.getName());
+        }
+    }
+
+    private static int crcOf(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+}
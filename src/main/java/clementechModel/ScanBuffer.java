@@ -0,0 +1,49 @@
+package clementechModel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+// codes from a keyboard-wedge barcode scanner. a scan is only queued when it arrives;
+// the checkout drains the queue once per UI pulse, so a burst of scans becomes one
+// cart change per item instead of one table / totals update per scan
+public class ScanBuffer {
+
+    // units per item in scan order, and the codes no item has
+    public record Batch(Map<Item, Integer> quantities, List<String> unknown, int scans) {
+        public boolean isEmpty() {
+            return scans == 0;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<String> codes = new ConcurrentLinkedQueue<>();
+
+    public void offer(String code) {
+        if (code == null) return;
+        String c = code.trim();
+        if (!c.isEmpty()) codes.add(c);
+    }
+
+    public boolean isEmpty() {
+        return codes.isEmpty();
+    }
+
+    // resolve = the id index (ItemRepository.findLoaded); no file is touched per scan
+    public Batch drain(Function<String, Item> resolve) {
+        Map<Item, Integer> quantities = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        int scans = 0;
+
+        String code;
+        while ((code = codes.poll()) != null) {
+            scans++;
+            Item item = resolve.apply(code);
+            if (item == null) unknown.add(code);
+            else quantities.merge(item, 1, Integer::sum);
+        }
+        return new Batch(quantities, unknown, scans);
+    }
+}
@@ -0,0 +1,152 @@
+package clementechModel;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// units held by open carts, per item, for every checkout lane of this process.
+// free stock = item stock - held units. a hold is taken when a unit goes into a cart,
+// released when the line is removed and committed with the bill (DataStorage.commitBill).
+// each item has its own counter changed by CAS, so lanes selling different items never wait
+// on each other. a hold that is not touched for HOLD_TTL_MS (cart left open) expires.
+public class StockLedger {
+
+    static final long HOLD_TTL_MS = 10 * 60_000;
+    private static final long SWEEP_MS = 30_000;
+
+    private static final StockLedger INSTANCE = new StockLedger();
+
+    public static StockLedger get() {
+        return INSTANCE;
+    }
+
+    // units of one item held by one cart; -1 once released or committed
+    public static final class Hold {
+        private final String itemId;
+        private final AtomicInteger units;
+        private volatile long expiresAt;
+
+        private Hold(String itemId, int units) {
+            this.itemId = itemId;
+            this.units = new AtomicInteger(units);
+            touch();
+        }
+
+        public String getItemId() { return itemId; }
+
+        public int getUnits() { return Math.max(0, units.get()); }
+
+        public boolean isActive() { return units.get() >= 0; }
+
+        private void touch() {
+            expiresAt = System.currentTimeMillis() + HOLD_TTL_MS;
+        }
+    }
+
+    private static final class Counter {
+        final AtomicInteger held = new AtomicInteger();
+        final Set<Hold> holds = ConcurrentHashMap.newKeySet();
+    }
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "clementech-stock-holds");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private StockLedger() {
+        sweeper.scheduleWithFixedDelay(this::releaseExpired, SWEEP_MS, SWEEP_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // a new hold of qty units, or null if less than qty units are free
+    public Hold reserve(Item item, int qty) {
+        if (item == null) throw new IllegalArgumentException("Item cannot be null.");
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+
+        Counter c = counter(item.getItemId());
+        if (!take(c, item, qty)) return null;
+
+        Hold h = new Hold(key(item.getItemId()), qty);
+        c.holds.add(h);
+        return h;
+    }
+
+    // qty more units on an existing hold; false if they are not free or the hold expired
+    public boolean grow(Hold hold, Item item, int qty) {
+        if (hold == null || item == null) return false;
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+
+        Counter c = counter(hold.itemId);
+        if (!take(c, item, qty)) return false;
+
+        int before = hold.units.getAndUpdate(u -> u < 0 ? u : u + qty);
+        if (before < 0) {
+            // expired in between: give the units back
+            c.held.addAndGet(-qty);
+            return false;
+        }
+        hold.touch();
+        return true;
+    }
+
+    // the cart is still open: keeps its holds from expiring
+    public void touch(Hold hold) {
+        if (hold != null && hold.isActive()) hold.touch();
+    }
+
+    public void release(Hold hold) {
+        if (hold == null) return;
+        int units = hold.units.getAndSet(-1);
+        Counter c = counters.get(hold.itemId);
+        if (c == null) return;
+        c.holds.remove(hold);
+        if (units > 0) c.held.addAndGet(-units);
+    }
+
+    // the held units were sold; DataStorage.commitBill has already taken them off the stock
+    public void commit(Hold hold) {
+        release(hold);
+    }
+
+    public int held(String itemId) {
+        Counter c = counters.get(key(itemId));
+        return c == null ? 0 : c.held.get();
+    }
+
+    // stock no cart is holding
+    public int available(Item item) {
+        return item.getStockQuantity() - held(item.getItemId());
+    }
+
+    // compare-and-set so two lanes can never both take the last unit
+    private static boolean take(Counter c, Item item, int qty) {
+        while (true) {
+            int held = c.held.get();
+            if (item.getStockQuantity() - held < qty) return false;
+            if (c.held.compareAndSet(held, held + qty)) return true;
+        }
+    }
+
+    private void releaseExpired() {
+        long now = System.currentTimeMillis();
+        for (Counter c : counters.values()) {
+            for (Hold h : c.holds) {
+                if (h.expiresAt <= now) release(h);
+            }
+        }
+    }
+
+    private Counter counter(String itemId) {
+        return counters.computeIfAbsent(key(itemId), k -> new Counter());
+    }
+
+    private static String key(String itemId) {
+        return itemId == null ? "" : itemId.trim().toLowerCase();
+    }
+}
@@ -11,6 +11,9 @@ public class TV extends Item implements Serializable{
     private String resolution;
 
 
+    TV() {
+    }
+
     public TV(String itemId, String name, String brand, double purchasePrice, double sellingPrice,
               int screenSizeInches, boolean isSmartTV, String resolution,int quantity,LocalDate dateOfPurchase,
               Inventory inventory)
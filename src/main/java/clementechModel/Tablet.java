@@ -16,6 +16,9 @@ public class Tablet extends Item implements Serializable{
     private boolean supportsPen;
 
 
+    Tablet() {
+    }
+
     public Tablet(String itemId, String name, String brand, double purchasePrice, double sellingPrice
             ,int quantity,LocalDate purchaseDate, String model, double screenSize, int storageGB, int ramGB,
                   boolean hasCellular, String operatingSystem, double batteryLifeHours, boolean supportsPen,
@@ -1,6 +1,10 @@
 package clementechView;
 
 import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -47,6 +51,14 @@ public final class BaseStyles {
 
     private static final String NAV_SELECTED_KEY = "navSelected";
 
+    // fonts and images are read and decoded once and shared by every view;
+    // keyed by (resource, size) so navigating between screens does no file I/O
+    private record ResourceKey(String resource, double width, double height) {}
+
+    private static final Map<Double, Font> FONTS = new ConcurrentHashMap<>();
+    private static final Map<ResourceKey, Image> IMAGES = new ConcurrentHashMap<>();
+    private static final Set<ResourceKey> MISSING_IMAGES = ConcurrentHashMap.newKeySet();
+
     private static final Font FONT_12 = loadFont(12);
     public static final String FONT_FAMILY = (FONT_12 != null) ? FONT_12.getFamily() : Font.getDefault().getFamily();
 
@@ -105,9 +117,7 @@ public final class BaseStyles {
     }
     public static void styleOrangeTitle(Label label, double size) {
         if (label == null) return;
-        try (java.io.InputStream is = BaseStyles.class.getResourceAsStream("/fonts/9SYSTEMA.TTF")) {
-            if (is != null) javafx.scene.text.Font.loadFont(is, 12);
-        } catch (Exception ignored) {}
+        // 9SYSTEMA is registered once when BaseStyles loads (FONT_12)
         label.setStyle("""
             -fx-font-family: '%s';
             -fx-font-size: %spx;
@@ -310,10 +320,13 @@ public final class BaseStyles {
     }
 
     public static Font font(double size) {
-        Font f = loadFont(size);
-        return (f != null) ? f : Font.font(Font.getDefault().getFamily(), size);
+        return FONTS.computeIfAbsent(size, s -> {
+            Font f = FONT_12 != null ? Font.font(FONT_FAMILY, s) : null;
+            return (f != null) ? f : Font.font(Font.getDefault().getFamily(), s);
+        });
     }
 
+    // parses the font file; only done once, after that the family is registered
     private static Font loadFont(double size) {
         try (InputStream is = BaseStyles.class.getResourceAsStream(FONT_RESOURCE)) {
             if (is == null) return null;
@@ -323,14 +336,41 @@ public final class BaseStyles {
         }
     }
 
+    // decoded once at full size; null if the resource is missing
+    public static Image image(String resourcePath) {
+        return image(resourcePath, 0, 0);
+    }
+
+    // decoded once at the requested size (aspect ratio kept, smooth scaling)
+    public static Image image(String resourcePath, double width, double height) {
+        if (resourcePath == null || resourcePath.isBlank()) return null;
+        ResourceKey key = new ResourceKey(resourcePath, width, height);
+        Image cached = IMAGES.get(key);
+        if (cached != null || MISSING_IMAGES.contains(key)) return cached;
+
+        URL url = BaseStyles.class.getResource(resourcePath);
+        Image img = url == null ? null : (width > 0 || height > 0)
+                ? new Image(url.toExternalForm(), width, height, true, true)
+                : new Image(url.toExternalForm());
+        if (img == null || img.isError()) {
+            MISSING_IMAGES.add(key);
+            return null;
+        }
+
+        Image prev = IMAGES.putIfAbsent(key, img);
+        return prev != null ? prev : img;
+    }
+
+    // decodes the given images off the FX thread, e.g. while the intro video plays
+    public static void preloadImages(String... resourcePaths) {
+        for (String path : resourcePaths) image(path);
+    }
+
 
     public static ImageView buildAuthLogo(String resourcePath, double fitHeight) {
         ImageView logoView = new ImageView();
 
-        if (resourcePath != null && !resourcePath.isBlank()) {
-            InputStream is = BaseStyles.class.getResourceAsStream(resourcePath);
-            if (is != null) logoView.setImage(new Image(is));
-        }
+        logoView.setImage(image(resourcePath));
 
         logoView.setPreserveRatio(true);
         logoView.setFitHeight(fitHeight);
@@ -393,9 +433,9 @@ public final class BaseStyles {
                 -fx-border-width: 0;
                 """);
 
-        InputStream is = BaseStyles.class.getResourceAsStream(resourcePath);
-        if (is != null) {
-            ImageView iv = new ImageView(new Image(is));
+        Image img = image(resourcePath);
+        if (img != null) {
+            ImageView iv = new ImageView(img);
             iv.setPreserveRatio(true);
             iv.setFitWidth(size);
             iv.setFitHeight(size);
@@ -623,11 +663,7 @@ public final class BaseStyles {
         headerContent.setPadding(new Insets(0, 18, 0, 18));
 
         // Logo
-        ImageView logo = new ImageView();
-        if (logoResourcePath != null && !logoResourcePath.isBlank()) {
-            InputStream is = BaseStyles.class.getResourceAsStream(logoResourcePath);
-            if (is != null) logo.setImage(new Image(is));
-        }
+        ImageView logo = new ImageView(image(logoResourcePath));
         logo.setFitHeight(55);
         logo.setPreserveRatio(true);
 
@@ -636,10 +672,7 @@ public final class BaseStyles {
         StackPane picFrame = new StackPane();
 
         double size = 40;
-        if (avatarResourcePath != null && !avatarResourcePath.isBlank()) {
-            InputStream is = BaseStyles.class.getResourceAsStream(avatarResourcePath);
-            if (is != null) picView.setImage(new Image(is));
-        }
+        picView.setImage(image(avatarResourcePath));
         picView.setFitWidth(size);
         picView.setFitHeight(size);
         picView.setPreserveRatio(false);
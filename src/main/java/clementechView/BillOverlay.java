@@ -1,6 +1,7 @@
 package clementechView;
 
 import clementechModel.Bill;
+import clementechModel.ReceiptWriter;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -11,6 +12,9 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 
+import java.io.File;
+import java.io.IOException;
+
 public final class BillOverlay {
 
     private BillOverlay() {}
@@ -24,12 +28,16 @@ public final class BillOverlay {
         Label title = new Label("Bill " + bill.getBillNumber());
         BaseStyles.styleSubtitle(title);
 
-        HBox top = new HBox(10, title, new Region());
+        Button export = new Button("Export .txt");
+        BaseStyles.styleGreenPrimaryButton(export);
+        export.setOnAction(e -> exportReceipt(bill));
+
+        HBox top = new HBox(10, title, new Region(), export);
         HBox.setHgrow(top.getChildren().get(1), Priority.ALWAYS);
         top.setAlignment(Pos.CENTER_LEFT);
         top.setPadding(new Insets(10));
 
-        TextArea area = new TextArea(bill.getBillInfo());
+        TextArea area = new TextArea(receiptText(bill));
         area.setEditable(false);
         area.setWrapText(true);
         area.setFocusTraversable(false);
@@ -45,4 +53,30 @@ public final class BillOverlay {
         dialog.setScene(new Scene(wrapper, 720, 520));
         dialog.show();
     }
+
+    // archived receipt (one positioned read), rendered from the bill if it is not archived
+    private static String receiptText(Bill bill) {
+        try {
+            return ReceiptWriter.get().read(bill);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return bill.getBillInfo();
+        }
+    }
+
+    private static void exportReceipt(Bill bill) {
+        Alert a;
+        try {
+            File out = ReceiptWriter.get().export(bill, new File("bills"));
+            a = new Alert(Alert.AlertType.INFORMATION);
+            a.setTitle("Exported");
+            a.setContentText("Receipt saved to " + out.getPath());
+        } catch (IOException ex) {
+            a = new Alert(Alert.AlertType.ERROR);
+            a.setTitle("Export failed");
+            a.setContentText(ex.getMessage());
+        }
+        a.setHeaderText(null);
+        a.showAndWait();
+    }
 }
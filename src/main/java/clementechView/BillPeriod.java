@@ -1,5 +1,7 @@
 package clementechView;
 
+import java.time.LocalDate;
+
 public enum BillPeriod {
 
     TODAY("Today"),
@@ -12,5 +14,16 @@ public enum BillPeriod {
 
     BillPeriod(String label) { this.label = label; }
 
+    // first day included in the period, null for ALL
+    public LocalDate startingFrom(LocalDate today) {
+        return switch (this) {
+            case TODAY      -> today;
+            case THIS_WEEK  -> today.minusDays(6);
+            case THIS_MONTH -> today.minusDays(29);
+            case THIS_YEAR  -> today.minusDays(364);
+            case ALL        -> null;
+        };
+    }
+
     @Override public String toString() { return label; }
 }
\ No newline at end of file
@@ -9,8 +9,10 @@ import clementechModel.DataStorage;
 import java.util.ArrayList;
 import clementechModel.Administrator;
 import clementechModel.Bill;
+import clementechModel.BillIndex;
 import clementechModel.Cashier;
 import clementechModel.Manager;
+import clementechModel.SalesRollup;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -48,6 +50,12 @@ public class BillView {
     private final Label costValue = new Label("0.00");
 
 
+    // every bill handed to setBills; master only holds the slice of the selected dates
+    private BillIndex index = new BillIndex(java.util.List.of());
+    private LocalDate shownFrom;
+    private LocalDate shownTo;
+    private boolean sliceStale = true;
+
     private final ObservableList<Bill> master = FXCollections.observableArrayList();
     private final FilteredList<Bill> filtered = new FilteredList<>(master, b -> true);
 
@@ -66,6 +74,8 @@ public class BillView {
     private final UserRole role;
     private final String cashierUsername;
 
+    private int systemBillCount = -1; // -1 = not provided, count the loaded bills
+
     private BillPeriod selectedPeriod = BillPeriod.TODAY;
     private LocalDate adminFrom = LocalDate.now();
     private LocalDate adminTo = LocalDate.now();
@@ -150,11 +160,18 @@ public class BillView {
     public Parent getRoot() { return root; }
 
     public void setBills(java.util.List<Bill> bills) {
-        master.setAll(bills == null ? java.util.List.of() : bills);
+        index = new BillIndex(bills);
+        sliceStale = true;
         refreshCashierFilter();
         applyFiltersAndSummaries();
     }
 
+    // total across all stored bills, when setBills only received a date slice
+    public void setSystemBillCount(int count) {
+        this.systemBillCount = count;
+        updateSummaryValues();
+    }
+
     private Parent buildSideNav() {
         sideNav.setPadding(new Insets(18, 12, 18, 12));
         sideNav.setPrefWidth(200);
@@ -450,6 +467,7 @@ public class BillView {
 
     private void applyFiltersAndSummaries() {
         final String q = safe(searchField.getText()).trim().toLowerCase();
+        showDates();
 
         filtered.setPredicate(b -> {
             if (b == null) return false;
@@ -466,41 +484,38 @@ public class BillView {
         updateSummaryValues();
     }
 
-    private boolean passesRoleFilter(Bill b) {
-        LocalDate d = b.getDateBillIsGettingCut();
+    // the bills of the role's dates (cashier: today, manager: the period, admin: from..to);
+    // the table only changes when the dates or the bills do, not on every search
+    private void showDates() {
         LocalDate today = LocalDate.now();
-        if (d == null) return false;
+        LocalDate from;
+        LocalDate to = today;
 
         if (role == UserRole.CASHIER) {
-            if (!d.equals(today)) return false;
+            from = today;
+        } else if (role == UserRole.MANAGER) {
+            BillPeriod period = (selectedPeriod == null) ? BillPeriod.TODAY : selectedPeriod;
+            from = period.startingFrom(today);
+        } else {
+            from = adminFrom;
+            to = adminTo;
+        }
 
+        if (!sliceStale && Objects.equals(from, shownFrom) && Objects.equals(to, shownTo)) return;
+        master.setAll(index.between(from, to));
+        shownFrom = from;
+        shownTo = to;
+        sliceStale = false;
+    }
+
+    // the dates are already narrowed by showDates
+    private boolean passesRoleFilter(Bill b) {
+        if (role == UserRole.CASHIER) {
             String createdBy = safe(b.getCreatedByUsername());
             if (cashierUsername.isBlank()) return true;
             return createdBy.equalsIgnoreCase(cashierUsername);
         }
 
-        if (role == UserRole.MANAGER) {
-            BillPeriod period = (selectedPeriod == null) ? BillPeriod.TODAY : selectedPeriod;
-
-            LocalDate from = switch (period) {
-                case TODAY      -> today;
-                case THIS_WEEK  -> today.minusDays(6);
-                case THIS_MONTH -> today.minusDays(29);
-                case THIS_YEAR  -> today.minusDays(364);
-                case ALL        -> LocalDate.MIN;
-            };
-
-            if (d.isBefore(from) || d.isAfter(today)) return false;
-            if (!selectedCashier.isBlank()) {
-                String createdBy = safe(b.getCreatedByUsername());
-                if (!createdBy.equalsIgnoreCase(selectedCashier)) return false;
-            }
-
-            return true;
-        }
-
-        if (d.isBefore(adminFrom) || d.isAfter(adminTo)) return false;
-
         if (!selectedCashier.isBlank()) {
             String createdBy = safe(b.getCreatedByUsername());
             if (!createdBy.equalsIgnoreCase(selectedCashier)) return false;
@@ -509,24 +524,33 @@ public class BillView {
         return true;
     }
 
+    // without a search the cards come from the daily rollup rows (one per day and cashier);
+    // a search narrows to single bills, so those are summed
     private void updateSummaryValues() {
-        int billsCount = filtered.size();
+        int billsCount;
+        double revenue = 0;
+        int itemsSold = 0;
+
+        if (safe(searchField.getText()).isBlank()) {
+            SalesRollup.Totals t = rollupTotals();
+            billsCount = t.getBills();
+            revenue = t.getNet();
+            itemsSold = t.getUnits();
+        } else {
+            billsCount = filtered.size();
+            for (Bill b : filtered) {
+                if (b == null) continue;
+                revenue += b.getPriceAfterDiscount();
+                itemsSold += b.getItemCount();
+            }
+        }
 
         if (role == UserRole.CASHIER) {
             billsValue.setText(String.valueOf(billsCount));
-            extraValue.setText(String.valueOf(master.size()));
+            extraValue.setText(String.valueOf(systemBillCount >= 0 ? systemBillCount : index.size()));
             return;
         }
 
-        double revenue = 0;
-        int itemsSold = 0;
-
-        for (Bill b : filtered) {
-            if (b == null) continue;
-            revenue += b.getPriceAfterDiscount();
-            itemsSold += b.getItemCount();
-        }
-
         billsValue.setText(String.valueOf(billsCount));
         revenueValue.setText(String.format(java.util.Locale.US, "%.2f", revenue));
 
@@ -542,6 +566,17 @@ public class BillView {
         }
     }
 
+    // same days and cashier as passesRoleFilter
+    private SalesRollup.Totals rollupTotals() {
+        LocalDate today = LocalDate.now();
+        if (role == UserRole.CASHIER) return SalesRollup.get().total(today, today, cashierUsername);
+        if (role == UserRole.MANAGER) {
+            BillPeriod period = (selectedPeriod == null) ? BillPeriod.TODAY : selectedPeriod;
+            return SalesRollup.get().total(period.startingFrom(today), today, selectedCashier);
+        }
+        return SalesRollup.get().total(adminFrom, adminTo, selectedCashier);
+    }
+
     private void wireSearch() {
         Runnable run = this::applyFiltersAndSummaries;
         searchBtn.setOnAction(e -> run.run());
@@ -118,12 +118,7 @@ public class CashierView {
     }
 
     private Font loadSystemaOrFallback(double size) {
-        try {
-            Font f = Font.loadFont(getClass().getResourceAsStream("/fonts/9SYSTEMA.TTF"), size);
-            return f != null ? f : Font.font(size);
-        } catch (Exception e) {
-            return Font.font(size);
-        }
+        return BaseStyles.font(size);
     }
 
     private static String safe(String s) {
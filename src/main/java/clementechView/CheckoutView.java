@@ -14,6 +14,7 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.text.Font;
 
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class CheckoutView {
 
@@ -27,6 +28,8 @@ public class CheckoutView {
 
     private final TextField searchField = new TextField();
     private final Button searchBtn = new Button("Search");
+    // keyboard-wedge scanners type the code followed by Enter into the focused field
+    private final TextField scanField = new TextField();
 
     private final TableView<ItemRow> resultsTable = new TableView<>();
     private final ObservableList<ItemRow> resultsData = FXCollections.observableArrayList();
@@ -52,6 +55,7 @@ public class CheckoutView {
     private Runnable onAddToCart;
     private Runnable onRemoveLine;
     private Runnable onFinalizeBill;
+    private Consumer<String> onScan;
 
     public CheckoutView(String cashierFullName, String logoPath, String avatarPath) {
         BaseStyles.applyAppBackground(root);
@@ -173,7 +177,26 @@ public class CheckoutView {
         searchBtn.setOnAction(e -> runAction("Search", onSearch));
         searchField.setOnAction(e -> runAction("Search", onSearch));
 
-        searchRow.getChildren().addAll(searchField, searchBtn);
+        scanField.setPromptText("Scan barcode...");
+        scanField.setPrefHeight(42);
+        scanField.setPrefWidth(190);
+        scanField.setFont(BaseStyles.font(15));
+        scanField.setStyle("""
+                -fx-background-color: rgba(249,142,2,0.08);
+                -fx-background-radius: 12;
+                -fx-padding: 10 12 10 12;
+                -fx-border-color: rgba(249,142,2,0.45);
+                -fx-border-radius: 12;
+                -fx-border-width: 1;
+                """);
+        // no popup per scan: the controller queues the code and reports in the status label
+        scanField.setOnAction(e -> {
+            String code = scanField.getText();
+            scanField.clear();
+            if (onScan != null) onScan.accept(code);
+        });
+
+        searchRow.getChildren().addAll(searchField, searchBtn, scanField);
 
         configureResultsTable();
 
@@ -308,8 +331,10 @@ public class CheckoutView {
     public void setOnAddToCart(Runnable r) { this.onAddToCart = r; }
     public void setOnRemoveLine(Runnable r) { this.onRemoveLine = r; }
     public void setOnFinalizeBill(Runnable r) { this.onFinalizeBill = r; }
+    public void setOnScan(Consumer<String> c) { this.onScan = c; }
 
     public TextField getSearchField() { return searchField; }
+    public TextField getScanField() { return scanField; }
     public TableView<ItemRow> getResultsTable() { return resultsTable; }
     public TableView<CartRow> getCartTable() { return cartTable; }
 
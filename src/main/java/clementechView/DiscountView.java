@@ -38,6 +38,8 @@ public class DiscountView {
     // right content
     private final TextField searchField = new TextField();
     private final Button searchBtn = new Button("Search");
+    private final Button promotionsBtn = new Button("Promotions...");
+    private Runnable onPromotions;
 
     private final TableView<Row> table = new TableView<>();
     private final TableColumn<Row, String> colItem = new TableColumn<>("Item");
@@ -107,7 +109,11 @@ public class DiscountView {
         BaseStyles.stylePrimaryButton(searchBtn);
         searchBtn.setPrefWidth(140);
 
-        HBox searchRow = new HBox(10, searchField, searchBtn);
+        BaseStyles.styleGreenPrimaryButton(promotionsBtn);
+        promotionsBtn.setPrefWidth(160);
+        promotionsBtn.setOnAction(e -> { if (onPromotions != null) onPromotions.run(); });
+
+        HBox searchRow = new HBox(10, searchField, searchBtn, promotionsBtn);
         searchRow.setAlignment(Pos.CENTER_LEFT);
 
         colItem.setCellValueFactory(d -> d.getValue().itemProperty());
@@ -193,6 +199,7 @@ public class DiscountView {
     public void setOnManageStocks(Runnable r) { this.onManageStocks = Objects.requireNonNull(r); }
     public void setOnCheckSales(Runnable r) { this.onCheckSales = Objects.requireNonNull(r); }
     public void setOnModifySuppliers(Runnable r) { this.onModifySuppliers = Objects.requireNonNull(r); }
+    public void setOnPromotions(Runnable r) { this.onPromotions = Objects.requireNonNull(r); }
 
     public void setRows(ObservableList<Row> rows) {
         master.setAll(rows == null ? FXCollections.observableArrayList() : rows);
@@ -234,12 +234,10 @@ public class ItemsSectorsView {
     // ===================== STYLING HELPERS =====================
 
     private void applyBackButtonIcon(Button btn, String resourcePath, double iconSize) {
-        var url = Objects.requireNonNull(
-                getClass().getResource(resourcePath),
+        Image img = Objects.requireNonNull(
+                BaseStyles.image(resourcePath, iconSize, iconSize),
                 "Back icon not found: " + resourcePath + " (put it in resources)"
-        ).toExternalForm();
-
-        Image img = new Image(url, iconSize, iconSize, true, true);
+        );
         ImageView iv = new ImageView(img);
         iv.setFitWidth(iconSize);
         iv.setFitHeight(iconSize);
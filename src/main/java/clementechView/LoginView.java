@@ -33,7 +33,7 @@ public class LoginView {
 
         Font font = Font.font("Bahnschrift", 16);
 
-        Image logo = new Image(getClass().getResourceAsStream("/logo/clementech.png"));
+        Image logo = BaseStyles.image("/logo/clementech.png");
         logoView.setImage(logo);
         logoView.setPreserveRatio(true);
         logoView.setFitHeight(140);
@@ -0,0 +1,138 @@
+package clem.iloveclementines;
+
+import clementechModel.CartHolds;
+import clementechModel.Item;
+import clementechModel.ScanBuffer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// replays a scanner burst against the checkout scan path without a window:
+// a producer "scans" at a fixed rate into a ScanBuffer, a 60 Hz pulse drains it, resolves
+// the codes through an id index and holds the stock through CartHolds, the same code
+// CheckoutController.applyScans runs; only the table rows are left out.
+// benchmark, not a test: mvn test-compile, then
+// java -cp target/classes:target/test-classes clem.iloveclementines.ScanReplay [scansPerSecond=50] [seconds=10] [catalogSize=20000]
+public class ScanReplay {
+
+    private static final long PULSE_NANOS = 16_666_667; // 60 fps
+
+    public static void main(String[] args) throws Exception {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int catalogSize = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        Map<String, Item> byId = new HashMap<>();
+        for (int i = 0; i < catalogSize; i++) {
+            Item it = new Item("EAN" + (4000000 + i), "Item " + i, "Brand " + (i % 40), 1.0, 2.5 + i % 100, null, 1_000_000) {};
+            byId.put(it.getItemId().toLowerCase(), it);
+        }
+
+        paced(byId, rate, seconds);
+        burst(byId, 200_000);
+    }
+
+    // scans at the given rate; reports scan -> cart latency and the work per pulse
+    private static void paced(Map<String, Item> byId, int rate, int seconds) throws Exception {
+        ScanBuffer buffer = new ScanBuffer();
+        Cart cart = new Cart();
+        Map<String, Long> scannedAt = new ConcurrentHashMap<>();
+        String[] codes = byId.keySet().toArray(new String[0]);
+        Random random = new Random(7);
+        int total = rate * seconds;
+
+        ScheduledExecutorService scanner = Executors.newSingleThreadScheduledExecutor();
+        long periodNanos = 1_000_000_000L / rate;
+        int[] sent = {0};
+        scanner.scheduleAtFixedRate(() -> {
+            if (sent[0] >= total) return;
+            // a code scanned again while still queued keeps its first timestamp
+            String code = codes[random.nextInt(Math.min(codes.length, 300))];
+            scannedAt.putIfAbsent(code, System.nanoTime());
+            buffer.offer(code);
+            sent[0]++;
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+
+        long maxLatency = 0, latencySum = 0, maxPulseWork = 0, workSum = 0;
+        int applied = 0, busyPulses = 0, pulses = 0;
+        long deadline = System.nanoTime() + (seconds + 1) * 1_000_000_000L;
+
+        while (System.nanoTime() < deadline && applied < total) {
+            long pulseStart = System.nanoTime();
+            ScanBuffer.Batch batch = buffer.drain(id -> byId.get(id.toLowerCase()));
+            if (!batch.isEmpty()) {
+                cart.apply(batch);
+                long done = System.nanoTime();
+                for (Item it : batch.quantities().keySet()) {
+                    Long at = scannedAt.remove(it.getItemId().toLowerCase());
+                    if (at == null) continue;
+                    maxLatency = Math.max(maxLatency, done - at);
+                    latencySum += done - at;
+                }
+                long work = done - pulseStart;
+                maxPulseWork = Math.max(maxPulseWork, work);
+                workSum += work;
+                applied += batch.scans();
+                busyPulses++;
+            }
+            pulses++;
+            long sleep = PULSE_NANOS - (System.nanoTime() - pulseStart);
+            if (sleep > 0) TimeUnit.NANOSECONDS.sleep(sleep);
+        }
+        scanner.shutdownNow();
+        cart.release();
+
+        System.out.printf("paced: %d scans at %d/s, %d applied in %d pulses (%d with scans)%n",
+                total, rate, applied, pulses, busyPulses);
+        System.out.printf("  scan -> cart latency avg %.2f ms, max %.2f ms%n",
+                latencySum / 1e6 / Math.max(1, busyPulses), maxLatency / 1e6);
+        System.out.printf("  work per busy pulse avg %.3f ms, max %.3f ms (budget %.1f ms)%n",
+                workSum / 1e6 / Math.max(1, busyPulses), maxPulseWork / 1e6, PULSE_NANOS / 1e6);
+    }
+
+    // everything queued at once, drained in one pulse: the ceiling of the scan path
+    private static void burst(Map<String, Item> byId, int scans) {
+        String[] codes = byId.keySet().toArray(new String[0]);
+        Random random = new Random(11);
+        for (int round = 0; round < 3; round++) {
+            ScanBuffer buffer = new ScanBuffer();
+            Cart cart = new Cart();
+            for (int i = 0; i < scans; i++) buffer.offer(codes[random.nextInt(codes.length)]);
+
+            long t0 = System.nanoTime();
+            ScanBuffer.Batch batch = buffer.drain(id -> byId.get(id.toLowerCase()));
+            cart.apply(batch);
+            long nanos = System.nanoTime() - t0;
+            cart.release();
+
+            if (round == 2) {
+                System.out.printf("burst: %d scans -> %d lines in %.1f ms (%.0f scans/s)%n",
+                        scans, cart.lines.size(), nanos / 1e6, scans / (nanos / 1e9));
+            }
+        }
+    }
+
+    // the cart side of applyScans: the CartHolds pass, then one line change per item, one totals pass
+    private static final class Cart {
+        final Map<Item, Integer> lines = new LinkedHashMap<>();
+        final CartHolds holds = new CartHolds();
+        double total;
+
+        void apply(ScanBuffer.Batch batch) {
+            CartHolds.Applied applied = holds.apply(batch, it -> lines.getOrDefault(it, 0));
+            for (Map.Entry<Item, Integer> e : applied.added().entrySet()) lines.merge(e.getKey(), e.getValue(), Integer::sum);
+            total = 0;
+            for (Map.Entry<Item, Integer> e : lines.entrySet()) total += e.getKey().getSellingPrice() * e.getValue();
+        }
+
+        void release() {
+            holds.releaseAll();
+        }
+    }
+}
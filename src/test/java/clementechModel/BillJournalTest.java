@@ -0,0 +1,105 @@
+package clementechModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a crash mid-append leaves a torn or corrupt last record; replay keeps what came before it
+class BillJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tornTailIsCutOff() throws IOException {
+        File file = dir.resolve("bills.journal").toFile();
+        BillJournal journal = new BillJournal(file.getPath());
+        for (int n = 1; n <= 3; n++) journal.append(bill(n));
+        long good = file.length();
+
+        // a record header promising 100 bytes, and only 10 of them
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(good);
+            raf.writeInt(100);
+            raf.writeInt(0);
+            raf.writeInt(4);
+            raf.write(new byte[10]);
+        }
+
+        BillJournal reopened = new BillJournal(file.getPath());
+        assertEquals(List.of(1, 2, 3), numbers(reopened.replay()));
+        assertEquals(good, file.length());
+        assertEquals(3, reopened.getMaxBillNumber());
+
+        // the next append starts clean
+        reopened.append(bill(4));
+        assertEquals(List.of(1, 2, 3, 4), numbers(new BillJournal(file.getPath()).replay()));
+    }
+
+    @Test
+    void corruptLastRecordIsCutOff() throws IOException {
+        File file = dir.resolve("bills.journal").toFile();
+        BillJournal journal = new BillJournal(file.getPath());
+        journal.append(bill(1));
+        journal.append(bill(2));
+        long good = file.length();
+        journal.append(bill(3));
+
+        // one flipped byte in the last payload: its crc no longer matches
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(file.length() - 1);
+            int b = raf.read();
+            raf.seek(file.length() - 1);
+            raf.write(b ^ 0xFF);
+        }
+
+        BillJournal reopened = new BillJournal(file.getPath());
+        assertEquals(List.of(1, 2), numbers(reopened.replay()));
+        assertEquals(good, file.length());
+        assertEquals(2, reopened.getRecordCount());
+        assertEquals(2, reopened.getMaxBillNumber());
+    }
+
+    @Test
+    void headerScanCutsTornTailBeforeAppend() throws IOException {
+        File file = dir.resolve("bills.journal").toFile();
+        BillJournal journal = new BillJournal(file.getPath());
+        journal.append(bill(1));
+        journal.append(bill(2));
+        long good = file.length();
+
+        // a torn header: not even the length prefix made it in full
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(good);
+            raf.write(new byte[]{0, 0});
+        }
+
+        BillJournal reopened = new BillJournal(file.getPath());
+        assertEquals(2, reopened.getRecordCount());
+        assertEquals(good, file.length());
+
+        reopened.append(bill(3));
+        assertEquals(List.of(1, 2, 3), numbers(new BillJournal(file.getPath()).replay()));
+    }
+
+    private static Bill bill(int number) {
+        return new Bill(number, "walk-in", LocalDate.of(2024, 3, 14), "ana",
+                new ArrayList<>(List.of(new BillLine("P" + number, "Phone", number, 100.0, 0.0, Sector.PHONE))),
+                100.0 * number, 0.0, 100.0 * number, List.of());
+    }
+
+    private static List<Integer> numbers(List<Bill> bills) {
+        List<Integer> out = new ArrayList<>();
+        for (Bill b : bills) out.add(b.getBillNumber());
+        return out;
+    }
+}
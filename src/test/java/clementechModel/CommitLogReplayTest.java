@@ -0,0 +1,171 @@
+package clementechModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a crash after the commit record is on disk but before the item slots have it: replaying the
+// log (as DataStorage.ensureRecovered does) must apply every stock delta exactly once
+class CommitLogReplayTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 14);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void crashBeforeSlotWriteAppliesDeltasOnce() throws IOException {
+        ItemStore store = store();
+        store.saveAll(List.of(phone("P1", 10), phone("P2", 10)), 0);
+
+        CommitLog log = log();
+        long tx = log.append(bill(1), deltas("P1", 2, "P2", 1));
+        // crash: the slots never saw tx
+
+        replay(store(), log());
+        Map<String, Item> items = reload();
+        assertStock(items, "P1", 8, 2);
+        assertStock(items, "P2", 9, 1);
+        assertEquals(1, tx);
+    }
+
+    @Test
+    void slotAlreadyWrittenIsSkipped() throws IOException {
+        Item p1 = phone("P1", 10);
+        Item p2 = phone("P2", 10);
+        ItemStore store = store();
+        store.saveAll(List.of(p1, p2), 0);
+
+        CommitLog log = log();
+        long tx = log.append(bill(1), deltas("P1", 2, "P2", 1));
+        // P1's slot was written with the transaction, P2's not yet
+        p1.stockQuatity = 8;
+        p1.numberSold = 2;
+        store.saveNumbers(List.of(p1), tx);
+
+        assertEquals(1, replay(store(), log()));
+        Map<String, Item> items = reload();
+        assertStock(items, "P1", 8, 2);
+        assertStock(items, "P2", 9, 1);
+    }
+
+    @Test
+    void replayingTwiceChangesNothing() throws IOException {
+        store().saveAll(List.of(phone("P1", 10), phone("P2", 10)), 0);
+
+        CommitLog log = log();
+        log.append(bill(1), deltas("P1", 2, "P2", 1));
+        log.append(bill(2), deltas("P1", 3, "P2", 0));
+
+        assertEquals(4, replay(store(), log()));
+        // crash during recovery, before the log was cut: the next start replays it again
+        assertEquals(0, replay(store(), log()));
+
+        Map<String, Item> items = reload();
+        assertStock(items, "P1", 5, 5);
+        assertStock(items, "P2", 9, 1);
+    }
+
+    @Test
+    void tornRecordIsNotReplayed() throws IOException {
+        store().saveAll(List.of(phone("P1", 10)), 0);
+
+        CommitLog log = log();
+        log.append(bill(1), deltas("P1", 2, "P2", 0));
+        log.append(bill(2), deltas("P1", 3, "P2", 0));
+        File file = dir.resolve("commit.log").toFile();
+        long full = file.length();
+        // the second record was cut short by the crash
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(full - 5);
+        }
+
+        CommitLog reopened = log();
+        List<CommitLog.Record> records = reopened.readAll();
+        assertEquals(1, records.size());
+        assertEquals(1, records.get(0).bill().getBillNumber());
+        assertEquals(1, reopened.getLastTx());
+
+        replay(store(), reopened);
+        assertStock(reload(), "P1", 8, 2);
+
+        // the next commit takes the torn record's place
+        assertEquals(2, reopened.append(bill(3), deltas("P1", 1, "P2", 0)));
+        assertEquals(2, log().readAll().size());
+    }
+
+    @Test
+    void checkpointKeepsTransactionIds() throws IOException {
+        ItemStore store = store();
+        store.saveAll(List.of(phone("P1", 10)), 0);
+
+        CommitLog log = log();
+        log.append(bill(1), deltas("P1", 2, "P2", 0));
+        replay(store, log);
+        store.force();
+        log.truncateThrough(log.getLastTx());
+
+        // a record after the checkpoint gets a newer id, so the slot does not skip it
+        long tx = log().append(bill(2), deltas("P1", 1, "P2", 0));
+        assertEquals(2, tx);
+        replay(store(), log());
+        assertStock(reload(), "P1", 7, 3);
+    }
+
+    // what DataStorage.ensureRecovered does with the item slots; returns the slots changed
+    private static int replay(ItemStore store, CommitLog log) throws IOException {
+        store.load();
+        int changed = 0;
+        for (CommitLog.Record r : log.readAll()) changed += store.applyDeltas(r.tx(), r.deltas());
+        store.force();
+        return changed;
+    }
+
+    private ItemStore store() {
+        return new ItemStore(dir.resolve("items.dat").toString(), dir.resolve("items.slots").toString());
+    }
+
+    private CommitLog log() {
+        return new CommitLog(dir.resolve("commit.log").toString());
+    }
+
+    private Map<String, Item> reload() throws IOException {
+        Map<String, Item> out = new LinkedHashMap<>();
+        for (Item it : store().load()) out.put(it.getItemId(), it);
+        return out;
+    }
+
+    private static void assertStock(Map<String, Item> items, String id, int stock, int sold) {
+        assertEquals(stock, items.get(id).getStockQuantity(), id + " stock");
+        assertEquals(sold, items.get(id).getNumberSold(), id + " sold");
+    }
+
+    // units sold of two items, as the stock / sold deltas commitBill records
+    private static Map<String, int[]> deltas(String a, int soldA, String b, int soldB) {
+        Map<String, int[]> out = new LinkedHashMap<>();
+        out.put(a, new int[]{-soldA, soldA});
+        out.put(b, new int[]{-soldB, soldB});
+        return out;
+    }
+
+    private static Phone phone(String id, int stock) {
+        return new Phone(id, "Phone " + id, "Brand", 50.0, 100.0, "M", 128, true, stock, DAY, new Inventory());
+    }
+
+    private static Bill bill(int number) {
+        return new Bill(number, "walk-in", DAY, "ana",
+                new ArrayList<>(List.of(new BillLine("P1", "Phone P1", 1, 100.0, 0.0, Sector.PHONE))),
+                100.0, 0.0, 100.0, List.of());
+    }
+}
@@ -0,0 +1,93 @@
+package clementechModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// list files written by ObjectOutputStream before the codec are migrated on first read
+class LegacyMigrationTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void legacyListIsBackedUpAndRewritten() throws IOException {
+        File file = dir.resolve("suppliers.dat").toFile();
+        writeLegacy(file, new Object[]{new Supplier("Acme", "acme@example.com"), new Supplier("Globex", "555")});
+        byte[] original = Files.readAllBytes(file.toPath());
+        assertTrue(ModelCodec.isLegacyFile(file));
+
+        ArrayList<Supplier> suppliers = ModelCodec.readListFile(file, ModelCodec.KIND_SUPPLIERS, Supplier.class);
+
+        assertEquals(List.of("Acme", "Globex"), names(suppliers));
+        File bak = new File(file.getPath() + ".bak");
+        assertTrue(bak.exists());
+        assertArrayEquals(original, Files.readAllBytes(bak.toPath()));
+        assertFalse(ModelCodec.isLegacyFile(file));
+
+        // the second read takes the codec file
+        assertEquals(List.of("Acme", "Globex"),
+                names(ModelCodec.readListFile(file, ModelCodec.KIND_SUPPLIERS, Supplier.class)));
+    }
+
+    @Test
+    void firstBackupIsKept() throws IOException {
+        File file = dir.resolve("suppliers.dat").toFile();
+        writeLegacy(file, new Object[]{new Supplier("Acme", "acme@example.com")});
+        byte[] original = Files.readAllBytes(file.toPath());
+        ModelCodec.readListFile(file, ModelCodec.KIND_SUPPLIERS, Supplier.class);
+
+        // an old copy of the file is put back and migrated again
+        writeLegacy(file, new Object[]{new Supplier("Globex", "555")});
+        assertEquals(List.of("Globex"),
+                names(ModelCodec.readListFile(file, ModelCodec.KIND_SUPPLIERS, Supplier.class)));
+
+        assertArrayEquals(original, Files.readAllBytes(dir.resolve("suppliers.dat.bak")));
+    }
+
+    @Test
+    void legacyItemsKeepTheirFields() throws IOException {
+        File file = dir.resolve("items.dat").toFile();
+        LocalDate day = LocalDate.of(2024, 3, 14);
+        Phone phone = new Phone("P1", "Pixel", "Google", 300.0, 500.0, "8", 128, true, 7, day, new Inventory());
+        phone.setSupplier(new Supplier("Acme", "acme@example.com"));
+        // entries of another type are dropped
+        writeLegacy(file, new Object[]{phone, "not an item", null});
+
+        ArrayList<Item> items = ModelCodec.readListFile(file, ModelCodec.KIND_ITEMS, Item.class);
+
+        assertEquals(1, items.size());
+        Phone back = (Phone) items.get(0);
+        assertEquals("P1", back.getItemId());
+        assertEquals("Pixel", back.getItemName());
+        assertEquals(500.0, back.getSellingPrice());
+        assertEquals(7, back.getStockQuantity());
+        assertEquals(Sector.PHONE, back.getSector());
+        assertEquals("Acme", back.getSupplier());
+        assertTrue(new File(file.getPath() + ".bak").exists());
+        assertFalse(ModelCodec.isLegacyFile(file));
+    }
+
+    private static void writeLegacy(File file, Object[] contents) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(contents);
+        }
+    }
+
+    private static List<String> names(List<Supplier> suppliers) {
+        List<String> out = new ArrayList<>();
+        for (Supplier s : suppliers) out.add(s.getSupplierName());
+        return out;
+    }
+}
@@ -0,0 +1,325 @@
+package clementechModel;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// every schema version ModelCodec still reads. the old layouts are written by hand here, the
+// way those builds wrote them, since the Writer only writes the current one
+class ModelCodecTest {
+
+    // object tags of the stored format
+    private static final int TAG_MANAGER = 20;
+    private static final int TAG_CASHIER = 21;
+    private static final int TAG_ADMIN = 22;
+    private static final int TAG_BILL = 30;
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 14);
+
+    @Test
+    void currentVersionRoundTrip() throws IOException {
+        Bill bill = new Bill(42, "walk-in", DAY, "ana", new ArrayList<>(List.of(
+                new BillLine("P1", "Pixel", 2, 500.0, 10.0, Sector.PHONE),
+                new BillLine("T1", "Bravia", 1, 900.0, 0.0, Sector.TV))),
+                1900.0, 150.0, 1750.0, List.of(new AppliedPromotion(7, "tv week", "T1", 5000)));
+
+        Bill back = ModelCodec.decode(ModelCodec.encode(ModelCodec.KIND_BILL_RECORD, w -> w.writeObject(bill)),
+                ModelCodec.KIND_BILL_RECORD, r -> r.readObject(Bill.class));
+
+        assertEquals(42, back.getBillNumber());
+        assertEquals("walk-in", back.getBuyerInfo());
+        assertEquals(DAY, back.getDateBillIsGettingCut());
+        assertEquals("ana", back.getCreatedByUsername());
+        assertEquals(bill.getLines(), back.getLines());
+        assertEquals(bill.getPromotions(), back.getPromotions());
+        assertEquals(1900.0, back.getTotalBillPrice());
+        assertEquals(150.0, back.getTotalDiscount());
+        assertEquals(1750.0, back.getPriceAfterDiscount());
+    }
+
+    @Test
+    void currentVersionKeepsSharedObjects() throws IOException {
+        Supplier supplier = new Supplier("Acme", "acme@example.com");
+        Phone a = phone("P1", 500.0);
+        Phone b = phone("P2", 700.0);
+        a.setSupplier(supplier);
+        b.setSupplier(supplier);
+        Promotion promo = Promotion.buyNGetM(3, "2+1", "P1", 2, 1);
+
+        List<Object> back = ModelCodec.decode(ModelCodec.encode(ModelCodec.KIND_ITEMS,
+                        w -> w.writeObjectList(List.of(a, b, promo))),
+                ModelCodec.KIND_ITEMS, r -> r.readObjectList(Object.class));
+
+        Phone a2 = (Phone) back.get(0);
+        Phone b2 = (Phone) back.get(1);
+        assertEquals("P1", a2.getItemId());
+        assertEquals(700.0, b2.getSellingPrice());
+        assertEquals(Sector.PHONE, a2.getSector());
+        assertSame(a2.getSupplierObj(), b2.getSupplierObj());
+        assertEquals("Acme", a2.getSupplier());
+        assertEquals(promo, back.get(2));
+    }
+
+    @Test
+    void version1BillCollapsesItemsIntoLines() throws IOException {
+        byte[] payload = payload(ModelCodec.KIND_BILL_RECORD, 1, w -> {
+            billHead(w, 5);
+            // one Item per unit sold
+            w.writeObjectList(List.of(phone("P1", 500.0), phone("P1", 500.0), phone("P2", 700.0)));
+            billTotals(w);
+        });
+
+        Bill back = ModelCodec.decode(payload, ModelCodec.KIND_BILL_RECORD, r -> r.readObject(Bill.class));
+
+        assertEquals(5, back.getBillNumber());
+        assertEquals(List.of(
+                new BillLine("P1", "Phone P1", 2, 500.0, 0.0, Sector.PHONE),
+                new BillLine("P2", "Phone P2", 1, 700.0, 0.0, Sector.PHONE)), back.getLines());
+        assertEquals(3, back.getItemCount());
+        assertEquals(1700.0, back.getTotalBillPrice());
+        assertTrue(back.getPromotions().isEmpty());
+    }
+
+    @Test
+    void version2And3BillsHaveLinesWithoutSector() throws IOException {
+        for (int version : new int[]{2, 3}) {
+            byte[] payload = payload(ModelCodec.KIND_BILL_RECORD, version, w -> {
+                billHead(w, 6);
+                w.writeVarInt(1);
+                w.writeString("P1");
+                w.writeString("Pixel");
+                w.writeVarInt(3);
+                w.writeDouble(500.0);
+                w.writeDouble(10.0);
+                billTotals(w);
+            });
+
+            Bill back = ModelCodec.decode(payload, ModelCodec.KIND_BILL_RECORD, r -> r.readObject(Bill.class));
+
+            assertEquals(List.of(new BillLine("P1", "Pixel", 3, 500.0, 10.0, null)), back.getLines(),
+                    "schema " + version);
+            assertTrue(back.getPromotions().isEmpty(), "schema " + version);
+        }
+    }
+
+    @Test
+    void version4BillHasPromotions() throws IOException {
+        byte[] payload = payload(ModelCodec.KIND_BILL_RECORD, 4, w -> {
+            billHead(w, 7);
+            w.writeVarInt(1);
+            w.writeString("P1");
+            w.writeString("Pixel");
+            w.writeVarInt(3);
+            w.writeDouble(500.0);
+            w.writeDouble(0.0);
+            billTotals(w);
+            w.writeVarInt(1);
+            w.writeSignedInt(9);
+            w.writeString("2+1");
+            w.writeString("P1");
+            w.writeSignedLong(50000);
+        });
+
+        Bill back = ModelCodec.decode(payload, ModelCodec.KIND_BILL_RECORD, r -> r.readObject(Bill.class));
+
+        assertEquals(List.of(new BillLine("P1", "Pixel", 3, 500.0, 0.0, null)), back.getLines());
+        assertEquals(List.of(new AppliedPromotion(9, "2+1", "P1", 50000)), back.getPromotions());
+    }
+
+    @Test
+    void version2CashierEmbedsBillsAndManager() throws IOException {
+        byte[] payload = payload(ModelCodec.KIND_CASHIERS, 2, w -> {
+            w.writeVarInt(2); // list of one
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_CASHIER);
+            employee(w, 11, "ana");
+            w.writeEnumSet(Set.of(Sector.PHONE));
+            w.writeVarInt(2); // the cashier's bills
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_BILL);
+            w.writeSignedInt(8);
+            w.writeString("walk-in");
+            w.writeDate(DAY);
+            w.writeString("ana");
+            w.writeVarInt(0);
+            billTotals(w);
+            w.writeVarInt(1); // a copy of the manager
+            w.writeVarInt(TAG_MANAGER);
+            employee(w, 3, "boss");
+            w.writeEnumSet(Set.of(Sector.PHONE));
+            w.writeObjectList(null);          // its cashiers
+            w.writeObjectList(List.of());     // its inventory
+            w.writeDouble(0.0);
+            w.writeObjectList(null);          // its purchases
+            w.writeSignedInt(4);              // totalBillNumbers
+        });
+
+        Cashier c = ModelCodec.decode(payload, ModelCodec.KIND_CASHIERS, r -> r.readObjectList(Cashier.class)).get(0);
+
+        assertEquals(11, c.getEmployeeId());
+        assertEquals("ana", c.getUsername());
+        assertEquals(3, c.getManagerId());
+        assertEquals(4, c.totalBillNumbers);
+        assertEquals(1, c.totalBills.size());
+        assertEquals(8, c.totalBills.get(0).getBillNumber());
+    }
+
+    @Test
+    void version3CashierStoresManagerId() throws IOException {
+        byte[] payload = payload(ModelCodec.KIND_CASHIERS, 3, w -> {
+            w.writeVarInt(2);
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_CASHIER);
+            employee(w, 12, "ben");
+            w.writeEnumSet(Set.of(Sector.TV));
+            w.writeSignedInt(3);
+            w.writeSignedInt(9);
+        });
+
+        Cashier c = ModelCodec.decode(payload, ModelCodec.KIND_CASHIERS, r -> r.readObjectList(Cashier.class)).get(0);
+
+        assertEquals(12, c.getEmployeeId());
+        assertEquals(3, c.getManagerId());
+        assertEquals(9, c.totalBillNumbers);
+        assertTrue(c.totalBills.isEmpty());
+    }
+
+    @Test
+    void version2ManagerEmbedsInventoryAndPurchases() throws IOException {
+        byte[] payload = payload(ModelCodec.KIND_MANAGERS, 2, w -> {
+            w.writeVarInt(2);
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_MANAGER);
+            employee(w, 3, "boss");
+            w.writeEnumSet(Set.of(Sector.PHONE));
+            w.writeObjectList(List.of());
+            w.writeObjectList(List.of(phone("P1", 500.0)));
+            w.writeDouble(1200.0);
+            w.writeObjectList(List.of(phone("P2", 700.0)));
+        });
+
+        Manager m = ModelCodec.decode(payload, ModelCodec.KIND_MANAGERS, r -> r.readObjectList(Manager.class)).get(0);
+
+        assertEquals(3, m.getEmployeeId());
+        assertEquals(1200.0, m.getTotalSpendings());
+        assertEquals("P1", m.getInventory().getItemsInInventory().get(0).getItemId());
+        assertEquals("P2", m.itemsPurchased.get(0).getItemId());
+        assertTrue(m.purchasesChanged);
+    }
+
+    @Test
+    void version3ManagerStoresItemIds() throws IOException {
+        byte[] payload = payload(ModelCodec.KIND_MANAGERS, 3, w -> {
+            w.writeVarInt(2);
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_MANAGER);
+            employee(w, 3, "boss");
+            w.writeEnumSet(Set.of(Sector.PHONE));
+            w.writeVarInt(2);
+            w.writeString("P1");
+            w.writeString("P2");
+            w.writeDouble(1200.0);
+        });
+
+        Manager m = ModelCodec.decode(payload, ModelCodec.KIND_MANAGERS, r -> r.readObjectList(Manager.class)).get(0);
+
+        assertEquals(List.of("P1", "P2"), m.unresolvedItemIds);
+        assertTrue(m.getInventory().getItemsInInventory().isEmpty());
+        assertNull(m.itemsPurchased);
+    }
+
+    @Test
+    void adminLinksManagersByVersion() throws IOException {
+        byte[] v2 = payload(ModelCodec.KIND_ADMIN, 2, w -> {
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_ADMIN);
+            employee(w, 1, "admin");
+            w.writeVarInt(2);
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_MANAGER);
+            employee(w, 3, "boss");
+            w.writeEnumSet(Set.of());
+            w.writeObjectList(null);
+            w.writeObjectList(List.of());
+            w.writeDouble(0.0);
+            w.writeObjectList(null);
+        });
+        byte[] v3 = payload(ModelCodec.KIND_ADMIN, 3, w -> {
+            w.writeVarInt(1);
+            w.writeVarInt(TAG_ADMIN);
+            employee(w, 1, "admin");
+            w.writeVarInt(1);
+            w.writeSignedInt(3);
+        });
+
+        for (byte[] payload : List.of(v2, v3)) {
+            Administrator a = ModelCodec.decode(payload, ModelCodec.KIND_ADMIN, r -> r.readObject(Administrator.class));
+            assertEquals(1, a.getEmployeeId());
+            assertEquals(List.of(3), a.managerIds);
+        }
+    }
+
+    @Test
+    void rejectsNewerVersionAndOtherKind() throws IOException {
+        byte[] newer = payload(ModelCodec.KIND_BILL_RECORD, ModelCodec.SCHEMA_VERSION + 1, w -> w.writeObject(null));
+        assertThrows(IOException.class,
+                () -> ModelCodec.decode(newer, ModelCodec.KIND_BILL_RECORD, r -> r.readObject(Bill.class)));
+
+        byte[] items = ModelCodec.encode(ModelCodec.KIND_ITEMS, w -> w.writeObjectList(List.of()));
+        assertThrows(IOException.class,
+                () -> ModelCodec.decode(items, ModelCodec.KIND_BILL_RECORD, r -> r.readObject(Bill.class)));
+    }
+
+    // header of the given schema version, then the body. the hand-written objects are not
+    // numbered like writeObject numbers them, so a body must not back-reference an object
+    private static byte[] payload(int kind, int version, ModelCodec.BodyWriter body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[]{'C', 'L', 'E', 'M', (byte) kind});
+        ModelCodec.Writer w = new ModelCodec.Writer(bytes);
+        w.writeVarInt(version);
+        body.write(w);
+        w.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void billHead(ModelCodec.Writer w, int number) throws IOException {
+        w.writeVarInt(1);
+        w.writeVarInt(TAG_BILL);
+        w.writeSignedInt(number);
+        w.writeString("walk-in");
+        w.writeDate(DAY);
+        w.writeString("ana");
+    }
+
+    private static void billTotals(ModelCodec.Writer w) throws IOException {
+        w.writeDouble(1700.0);
+        w.writeDouble(0.0);
+        w.writeDouble(1700.0);
+    }
+
+    private static void employee(ModelCodec.Writer w, int id, String username) throws IOException {
+        w.writeSignedInt(id);
+        w.writeString("First");
+        w.writeString("Last");
+        w.writeDate(LocalDate.of(1990, 1, 1));
+        w.writeString("555");
+        w.writeString(username + "@example.com");
+        w.writeDouble(1000.0);
+        w.writeString(username);
+        w.writeString("secret");
+        w.writeDate(null);
+        w.writeBoolean(false);
+        w.writeEnumSet(Set.of());
+    }
+
+    private static Phone phone(String id, double price) {
+        return new Phone(id, "Phone " + id, "Brand", price / 2, price, "M", 128, true, 5, DAY, new Inventory());
+    }
+}